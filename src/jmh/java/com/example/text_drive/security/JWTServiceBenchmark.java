@@ -0,0 +1,49 @@
+package com.example.text_drive.security;
+
+import com.example.text_drive.model.Role;
+import com.example.text_drive.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares validating a reused token through the cache of verified tokens
+ * with verifying it every time (base64 decoding, JSON parsing and the ECDSA signature check).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JWTServiceBenchmark {
+
+    private JWTService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        JwtKeyRing keyRing = new JwtKeyRing(Files.createTempDirectory("jwt-keys").toString(), Duration.ofDays(7));
+        jwtService = new JWTService(keyRing, new SimpleMeterRegistry(), 100_000);
+        User user = new User("benchmark", null, Role.ROLE_USER);
+        user.setId(UUID.randomUUID());
+        token = jwtService.generateToken(user);
+        jwtService.validateToken(token);  // Cache the token
+    }
+
+    @Benchmark
+    public TokenClaims validateCachedToken() {
+        return jwtService.validateToken(token);
+    }
+
+    @Benchmark
+    public TokenClaims verifyToken() {
+        return jwtService.verifyToken(token);
+    }
+}
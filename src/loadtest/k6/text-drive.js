@@ -0,0 +1,102 @@
+// Load test of the main request paths, used to compare the default (platform thread) mode with the
+// virtual-threads profile. See src/loadtest/README.md for how to run it and what to expect.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=400 src/loadtest/k6/text-drive.js
+
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+import { Counter } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const VUS = parseInt(__ENV.VUS || '400', 10);
+const USERS = parseInt(__ENV.USERS || '50', 10);  // Logins are rate limited per client address, keep this modest
+const DURATION = __ENV.DURATION || '5m';
+
+// Requests rejected because no pool connection was free within the acquire timeout show up as 5xx
+const serverErrors = new Counter('server_errors');
+
+const FILE_TEXT = 'The quick brown fox jumps over the lazy dog.\n'.repeat(2048);  // About 90 KB
+
+export const options = {
+    setupTimeout: '10m',
+    scenarios: {
+        mixed: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: VUS },
+                { duration: DURATION, target: VUS },
+                { duration: '15s', target: 0 },
+            ],
+            gracefulRampDown: '10s',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        'http_req_duration{name:list folders}': ['p(95)<500'],
+        'http_req_duration{name:get file}': ['p(95)<500'],
+        'http_req_duration{name:upload}': ['p(95)<2000'],
+    },
+};
+
+const json = { headers: { 'Content-Type': 'application/json' } };
+
+function authorized(token, extra = {}) {
+    return { headers: Object.assign({ Authorization: `Bearer ${token}` }, extra.headers || {}), tags: extra.tags };
+}
+
+// Registers the test users, logs each in once and gives each a folder with one file
+export function setup() {
+    const run = Date.now();
+    const users = [];
+    for (let i = 0; i < USERS; i++) {
+        const credentials = JSON.stringify({ username: `load-${run}-${i}`, password: 'load-test-password' });
+        http.post(`${BASE_URL}/users/register`, credentials, json);
+
+        let login = http.post(`${BASE_URL}/users/login`, credentials, json);
+        while (login.status === 429) {  // Wait for the per-address login budget to refill
+            sleep(3);
+            login = http.post(`${BASE_URL}/users/login`, credentials, json);
+        }
+        check(login, { 'logged in': (r) => r.status === 200 });
+        const token = login.json('token');
+
+        const folder = http.post(`${BASE_URL}/folders`, JSON.stringify({ name: `load-${i}` }),
+            authorized(token, { headers: json.headers }));
+        const folderId = folder.json('id');
+        const file = http.post(`${BASE_URL}/files?folderId=${folderId}`,
+            { file: http.file(FILE_TEXT, `seed-${i}.txt`, 'text/plain') }, authorized(token));
+        users.push({ token, folderId, fileId: file.json('id') });
+    }
+    return { users };
+}
+
+export default function (data) {
+    const user = data.users[(__VU - 1) % data.users.length];
+    const roll = Math.random();
+    let response;
+
+    if (roll < 0.4) {
+        response = http.get(`${BASE_URL}/folders?limit=50`, authorized(user.token, { tags: { name: 'list folders' } }));
+    } else if (roll < 0.7) {
+        response = http.get(`${BASE_URL}/files/${user.fileId}`, authorized(user.token, { tags: { name: 'get file' } }));
+    } else if (roll < 0.85) {
+        response = http.get(`${BASE_URL}/files/download/${user.fileId}`,
+            authorized(user.token, { tags: { name: 'download' } }));
+    } else if (roll < 0.95) {
+        response = http.get(`${BASE_URL}/files/search/content?query=quick%20fox`,
+            authorized(user.token, { tags: { name: 'search' } }));
+    } else {
+        // Unique content, so every upload stores a new blob instead of hitting deduplication
+        const text = `${__VU}-${__ITER}-${Date.now()}\n${FILE_TEXT}`;
+        response = http.post(`${BASE_URL}/files?folderId=${user.folderId}`,
+            { file: http.file(text, `upload-${__VU}-${__ITER}.txt`, 'text/plain') },
+            authorized(user.token, { tags: { name: 'upload' } }));
+    }
+
+    if (response.status >= 500) {
+        serverErrors.add(1);
+    }
+    check(response, { 'status is 2xx': (r) => r.status >= 200 && r.status < 300 });
+    sleep(Math.random() * 0.2);
+}
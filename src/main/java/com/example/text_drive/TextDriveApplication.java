@@ -7,6 +7,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * The main class that launches the Spring Boot application.
@@ -14,6 +15,7 @@ import org.springframework.context.annotation.Bean;
  * the necessary database setup is performed when the application starts.
  */
 @SpringBootApplication
+@EnableScheduling  // Used to collect orphaned file content in the background
 public class TextDriveApplication {
 
 	public static void main(String[] args) {
@@ -1,16 +1,30 @@
 package com.example.text_drive.controller;
 
 import com.example.text_drive.dto.FileDTO;
+import com.example.text_drive.dto.FileSearchResultDTO;
+import com.example.text_drive.dto.FileSummaryDTO;
 import com.example.text_drive.hateoas.LinkBuilder;
 import com.example.text_drive.model.File;
+import com.example.text_drive.repository.FileSearchResult;
+import com.example.text_drive.repository.FileSummary;
 import com.example.text_drive.service.FileService;
+import com.example.text_drive.storage.ContentCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,6 +36,9 @@ public class FileController {
     private final FileService fileService;
     private final LinkBuilder linkBuilder; // Inject LinkBuilder
 
+    // Largest page size accepted for paginated searches
+    private static final int MAX_PAGE_SIZE = 100;
+
     @PostMapping
     public ResponseEntity<FileDTO> uploadFile(@RequestParam("file") MultipartFile file, @RequestParam Long folderId, Authentication authentication) {
         File uploadedFile = fileService.uploadFile(file, folderId, authentication);
@@ -32,29 +49,134 @@ public class FileController {
     @GetMapping("/{fileId}")
     public ResponseEntity<FileDTO> getFile(@PathVariable Long fileId, Authentication authentication) {
         File file = fileService.getFileById(fileId, authentication);
+        FileDTO responseDTO = new FileDTO(file, fileService.getFileContent(file), linkBuilder, authentication);
+        return ResponseEntity.ok(responseDTO);
+    }
+
+    @PutMapping(value = "/{fileId}/content", consumes = "text/*")
+    public ResponseEntity<FileDTO> replaceFileContent(@PathVariable Long fileId, InputStream content, Authentication authentication) {
+        File file = fileService.replaceFileContent(fileId, content, authentication);
         FileDTO responseDTO = new FileDTO(file, linkBuilder, authentication);
         return ResponseEntity.ok(responseDTO);
     }
 
+    /**
+     * Streams the file content to the client.
+     * The body is returned as a Resource, so Spring writes it in chunks and answers
+     * "Range: bytes=..." requests with 206 Partial Content (e.g. to tail large logs).
+     * Content stored gzip compressed is sent as is to clients accepting gzip, unless a range is requested.
+     */
     @GetMapping("/download/{fileId}")
-    public ResponseEntity<String> downloadFile(@PathVariable Long fileId, Authentication authentication) {
+    public ResponseEntity<Resource> downloadFile(
+            @PathVariable Long fileId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            Authentication authentication
+    ) {
         File file = fileService.downloadFile(fileId, authentication);
-        return ResponseEntity.ok(file.getContent());
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(file.getName(), StandardCharsets.UTF_8)
+                        .build()
+                        .toString());
+
+        if (file.getCodec() == ContentCodec.GZIP && file.getContentKey() != null && range == null
+                && acceptsGzip(acceptEncoding)) {
+            return response
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(fileService.getStoredFileResource(file));  // No recompression needed
+        }
+        return response.body(fileService.getFileResource(file));
+    }
+
+    /**
+     * Checks if the Accept-Encoding header allows gzip. Every entry is read: an entry for gzip (or x-gzip) decides,
+     * otherwise an entry for * does, and either only allows gzip with a quality above zero.
+     * So "*;q=0, gzip" allows gzip and "gzip;q=0, *" does not.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+                gzipQuality = Math.max(quality(parts), gzipQuality != null ? gzipQuality : 0);
+            } else if (name.equals("*")) {
+                anyQuality = quality(parts);
+            }
+        }
+        Double quality = gzipQuality != null ? gzipQuality : anyQuality;
+        return quality != null && quality > 0;
+    }
+
+    /**
+     * Reads the "q" parameter of an Accept-Encoding entry, 1 if it has none and 0 if it cannot be parsed.
+     *
+     * @param parts The entry split at ";", the coding first.
+     */
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
     }
 
     @GetMapping("/search")
-    public ResponseEntity<CollectionModel<FileDTO>> searchFilesByName(@RequestParam String name, Authentication authentication) {
-        List<File> files = fileService.searchFilesByName(name, authentication);
-        List<FileDTO> fileDTOs = files.stream()
-                .map(file -> new FileDTO(file, linkBuilder, authentication))
+    public ResponseEntity<CollectionModel<FileSummaryDTO>> searchFilesByName(
+            @RequestParam String name,
+            @RequestParam(required = false) Boolean fuzzy,
+            Authentication authentication
+    ) {
+        List<FileSummary> files = fileService.searchFilesByName(name, Boolean.TRUE.equals(fuzzy), authentication);
+        List<FileSummaryDTO> fileDTOs = files.stream()
+                .map(file -> new FileSummaryDTO(file, linkBuilder, authentication))
                 .collect(Collectors.toList());
 
-        CollectionModel<FileDTO> collectionModel = CollectionModel.of(fileDTOs);
+        CollectionModel<FileSummaryDTO> collectionModel = CollectionModel.of(fileDTOs);
         collectionModel.add(linkBuilder.getSearchFilesLink(name, authentication));
 
         return ResponseEntity.ok(collectionModel);
     }
 
+    /**
+     * Full-text search over the content and names of the user's files, ranked by relevance and paginated.
+     */
+    @GetMapping("/search/content")
+    public ResponseEntity<PagedModel<FileSearchResultDTO>> searchFilesByContent(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication
+    ) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.clamp(size, 1, MAX_PAGE_SIZE));
+        Page<FileSearchResult> results = fileService.searchFilesByContent(q, pageRequest, authentication);
+        List<FileSearchResultDTO> resultDTOs = results.stream()
+                .map(result -> new FileSearchResultDTO(result, linkBuilder, authentication))
+                .collect(Collectors.toList());
+
+        PagedModel<FileSearchResultDTO> pagedModel = PagedModel.of(resultDTOs, new PagedModel.PageMetadata(
+                results.getSize(), results.getNumber(), results.getTotalElements(), results.getTotalPages()
+        ));
+        pagedModel.add(linkBuilder.getSearchFilesByContentLink(q, page, size, authentication));
+
+        return ResponseEntity.ok(pagedModel);
+    }
+
     @DeleteMapping("/{fileId}")
     public ResponseEntity<Void> deleteFile(@PathVariable Long fileId, Authentication authentication) {
         fileService.deleteFile(fileId, authentication);
@@ -69,13 +191,13 @@ public class FileController {
     }
 
     @GetMapping("/folder/{folderId}")
-    public ResponseEntity<CollectionModel<FileDTO>> getFilesByFolderId(@PathVariable Long folderId, Authentication authentication) {
-        List<File> files = fileService.getFilesByFolderId(folderId, authentication);
-        List<FileDTO> fileDTOs = files.stream()
-                .map(file -> new FileDTO(file, linkBuilder, authentication))
+    public ResponseEntity<CollectionModel<FileSummaryDTO>> getFilesByFolderId(@PathVariable Long folderId, Authentication authentication) {
+        List<FileSummary> files = fileService.getFilesByFolderId(folderId, authentication);
+        List<FileSummaryDTO> fileDTOs = files.stream()
+                .map(file -> new FileSummaryDTO(file, linkBuilder, authentication))
                 .collect(Collectors.toList());
 
-        CollectionModel<FileDTO> collectionModel = CollectionModel.of(fileDTOs);
+        CollectionModel<FileSummaryDTO> collectionModel = CollectionModel.of(fileDTOs);
         collectionModel.add(linkBuilder.getFilesByFolderIdLink(folderId, authentication));
 
         return ResponseEntity.ok(collectionModel);
@@ -2,17 +2,31 @@ package com.example.text_drive.controller;
 
 import com.example.text_drive.dto.FolderDTO;
 import com.example.text_drive.dto.FolderMapper;
+import com.example.text_drive.hateoas.LinkBuilder;
+import com.example.text_drive.hateoas.LinkMode;
 import com.example.text_drive.model.Folder;
+import com.example.text_drive.model.User;
 import com.example.text_drive.service.FolderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.data.domain.Slice;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/folders")
@@ -21,6 +35,12 @@ public class FolderController {
 
     private final FolderService folderService;
     private final FolderMapper folderMapper;
+    private final LinkBuilder linkBuilder;
+    private final ObjectMapper objectMapper;
+
+    // Page size of paginated folder listings without a limit, and the largest limit accepted
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
 
     @PostMapping
     public ResponseEntity<?> createFolder(@Valid @RequestBody FolderDTO folderDTO, Authentication authentication) {
@@ -47,26 +67,94 @@ public class FolderController {
         }
     }
 
+    /**
+     * Lists the user's folders. With "?links=minimal" (or links=minimal on the Accept media type)
+     * the folders are returned as a HAL collection carrying the shared links once.
+     * With "after" or "limit" one page is returned, ordered by id, and the next page is linked
+     * with rel "next" in the Link header (and in the collection's links in minimal mode).
+     */
     @GetMapping
-    public ResponseEntity<List<FolderDTO>> getUserFolders(Authentication authentication) {
-        List<Folder> folders = folderService.getUserFolders(authentication);
-        List<FolderDTO> folderDTOs = folders.stream()
-                .map(folder -> folderMapper.toDTO(folder, authentication))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(folderDTOs);
+    public ResponseEntity<?> getUserFolders(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String links,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            Authentication authentication
+    ) {
+        LinkMode linkMode = LinkMode.of(links, accept);
+        if (after == null && limit == null) {
+            List<Folder> folders = folderService.getUserFolders(authentication);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .body(folderMapper.toCollection(folders, linkBuilder.getUserFoldersLink(authentication),
+                            null, linkMode, authentication));
+        }
+
+        int pageSize = Math.clamp(limit != null ? limit : DEFAULT_PAGE_SIZE, 1, MAX_PAGE_SIZE);
+        Slice<Folder> page = folderService.getUserFolders(after, pageSize, authentication);
+        Link self = linkBuilder.getUserFoldersPageLink(after, pageSize, authentication);
+        Link next = page.hasNext()
+                ? linkBuilder.getUserFoldersPageLink(page.getContent().getLast().getId(), pageSize, authentication)
+                        .withRel(IanaLinkRelations.NEXT)
+                : null;
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (next != null) {
+            response.header(HttpHeaders.LINK, next.toString());
+        }
+        return response.body(folderMapper.toCollection(page.getContent(), self, next, linkMode, authentication));
+    }
+
+    /**
+     * Streams the user's folders as newline-delimited JSON (Accept: application/x-ndjson), one folder per line,
+     * written a page at a time as the pages are read from the database. Folders carry only their own links, and so do
+     * their files. Memory use stays flat however many folders there are, and no database connection is held while
+     * a page is written to the client.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUserFolders(HttpServletRequest request, Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        StreamingResponseBody body = out -> {
+            // Written on another thread, links are still built against the base URI of the request
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+            try {
+                folderService.forEachUserFolderPage(user, folders -> {
+                    try {
+                        for (Folder folder : folders) {
+                            out.write(objectMapper.writeValueAsBytes(folderMapper.toItemDTO(folder, authentication)));
+                            out.write('\n');
+                        }
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();  // Client went away, stops reading further pages
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> searchFoldersByName(@RequestParam String name, Authentication authentication) {
+    public ResponseEntity<?> searchFoldersByName(
+            @RequestParam String name,
+            @RequestParam(required = false) Boolean fuzzy,
+            @RequestParam(required = false) String links,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            Authentication authentication
+    ) {
         try {
             if (name == null || name.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body("Search cannot be empty");
             }
-            List<Folder> folders = folderService.searchFoldersByName(name, authentication);
-            List<FolderDTO> folderDTOs = folders.stream()
-                    .map(folder -> folderMapper.toDTO(folder, authentication))
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(folderDTOs);
+            List<Folder> folders = folderService.searchFoldersByName(name, Boolean.TRUE.equals(fuzzy), authentication);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .body(folderMapper.toCollection(folders, linkBuilder.getSearchFoldersLink(name, authentication),
+                            null, LinkMode.of(links, accept), authentication));
         } catch (ResponseStatusException e) {
             return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (Exception e) {
@@ -3,10 +3,14 @@ package com.example.text_drive.controller;
 import com.example.text_drive.dto.CreateUserRequestDTO;
 import com.example.text_drive.dto.LoginRequestDTO;
 import com.example.text_drive.dto.LoginResponseDTO;
+import com.example.text_drive.dto.RefreshRequestDTO;
 import com.example.text_drive.dto.UserResponseDTO;
 import com.example.text_drive.hateoas.LinkBuilder;
 import com.example.text_drive.model.User;
+import com.example.text_drive.security.LoginRateLimiter;
+import com.example.text_drive.service.RefreshTokenService;
 import com.example.text_drive.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +25,8 @@ import java.util.UUID;
 public class UserController {
 
     private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
+    private final LoginRateLimiter loginRateLimiter;
     private final LinkBuilder linkBuilder; // Inject LinkBuilder
 
     @PostMapping("/register")
@@ -35,15 +41,25 @@ public class UserController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponseDTO> login(@RequestBody LoginRequestDTO request, Authentication authentication) {
+    public ResponseEntity<LoginResponseDTO> login(
+            @RequestBody LoginRequestDTO request,
+            HttpServletRequest httpRequest,
+            Authentication authentication
+    ) {
+        // Throttle before the password is checked, responds with 429 when too many attempts are made
+        loginRateLimiter.checkAttempt(request.getUsername(), httpRequest.getRemoteAddr());
         try {
             String token = userService.login(request.getUsername(), request.getPassword());
             User user = userService.findByUsername(request.getUsername())
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
+            String refreshToken = refreshTokenService.issue(user);
+
             UserResponseDTO userResponseDTO = UserResponseDTO.fromUser(user, linkBuilder, authentication);
-            LoginResponseDTO loginResponseDTO = new LoginResponseDTO(token, userResponseDTO, linkBuilder, authentication);
+            LoginResponseDTO loginResponseDTO = new LoginResponseDTO(token, refreshToken, userResponseDTO, linkBuilder, authentication);
             return ResponseEntity.ok(loginResponseDTO);
+        } catch (ResponseStatusException e) {
+            throw e;  // E.g. 429 when too many passwords are being checked
         } catch (Exception e) {
             throw new ResponseStatusException(
                     HttpStatus.UNAUTHORIZED,
@@ -53,6 +69,30 @@ public class UserController {
         }
     }
 
+    /**
+     * Renews a session: exchanges a refresh token for a new token and a new refresh token, without the password.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponseDTO> refresh(@RequestBody RefreshRequestDTO request, Authentication authentication) {
+        RefreshTokenService.Session session = refreshTokenService.refresh(request.getRefreshToken());
+
+        UserResponseDTO userResponseDTO = UserResponseDTO.fromUser(session.user(), linkBuilder, authentication);
+        LoginResponseDTO loginResponseDTO = new LoginResponseDTO(
+                session.accessToken(), session.refreshToken(), userResponseDTO, linkBuilder, authentication
+        );
+        return ResponseEntity.ok(loginResponseDTO);
+    }
+
+    /**
+     * Logs out the authenticated user by revoking all of their tokens and refresh tokens.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        userService.revokeTokens(user.getId());
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<UserResponseDTO> getUser(@PathVariable UUID id, Authentication authentication) {
         User user = userService.findUserById(id)
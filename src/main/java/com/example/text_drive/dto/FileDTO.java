@@ -2,10 +2,12 @@ package com.example.text_drive.dto;
 
 import com.example.text_drive.hateoas.LinkBuilder;
 import com.example.text_drive.model.File;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 import org.springframework.hateoas.RepresentationModel;
 import org.springframework.security.core.Authentication;
+import java.time.Instant;
 
 /**
  * Data Transfer Object (DTO) for File entity, used to transfer file data between layers of the application.
@@ -20,31 +22,39 @@ public class FileDTO extends RepresentationModel<FileDTO> {
 
     @NotBlank(message = "File name cannot be blank")
     private String name;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)  // Content is only included for single-file responses
     private String content;
+    private Long size;
+    private String checksum;
+    private Instant modifiedAt;
     private Long folderId;
 
     /**
-     * Constructor to convert File to FileDTO.
+     * Constructor to convert File to FileDTO without its content, used for listings.
      *
      * @param file The entity to convert into a DTO.
      * @param linkBuilder The LinkBuilder instance to generate HATEOAS links.
      * @param authentication The Authentication object for link generation.
      */
     public FileDTO(File file, LinkBuilder linkBuilder, Authentication authentication) {
-        this.id = file.getId();
-        this.name = file.getName();
-        this.content = file.getContent();
-
-        // Set folderId, or null if folder is not available
-        this.folderId = (file.getFolder() != null) ? file.getFolder().getId() : null;
+        this(file, null, linkBuilder, authentication);
+    }
 
-        // Add HATEOAS self-link using LinkBuilder
-        this.add(linkBuilder.getFileSelfLink(file.getId(), authentication));
+    /**
+     * Constructor to convert File and its content to FileDTO.
+     *
+     * @param file The entity to convert into a DTO.
+     * @param content The content of the file, or null to leave it out.
+     * @param linkBuilder The LinkBuilder instance to generate HATEOAS links.
+     * @param authentication The Authentication object for link generation.
+     */
+    public FileDTO(File file, String content, LinkBuilder linkBuilder, Authentication authentication) {
+        this(file, content);
+        this.addItemLinks(linkBuilder, authentication);
 
-        // Add link to the folder containing this file
-        if (this.folderId != null) {
-            this.add(linkBuilder.getFolderLink(this.folderId, authentication));
-        }
+        // Add link to replace the content of this file
+        this.add(linkBuilder.getReplaceFileContentLink(file.getId(), authentication));
 
         // Add HATEOAS links using LinkBuilder
         this.add(linkBuilder.getUserFoldersLink(authentication)); // Link to get user's folders
@@ -62,4 +72,41 @@ public class FileDTO extends RepresentationModel<FileDTO> {
         this.add(linkBuilder.getRegisterLink()); // Link to register a new user
 
     }
+
+    /**
+     * Converts File to FileDTO without its content, with only the links of the file itself
+     * (self and folder). Used in collections that carry the shared links once (LinkMode.MINIMAL).
+     *
+     * @param file The entity to convert into a DTO.
+     * @param linkBuilder The LinkBuilder instance to generate HATEOAS links.
+     * @param authentication The Authentication object for link generation.
+     * @return The FileDTO with its own links.
+     */
+    public static FileDTO withItemLinks(File file, LinkBuilder linkBuilder, Authentication authentication) {
+        FileDTO dto = new FileDTO(file, null);
+        dto.addItemLinks(linkBuilder, authentication);
+        return dto;
+    }
+
+    private FileDTO(File file, String content) {
+        this.id = file.getId();
+        this.name = file.getName();
+        this.content = content;
+        this.size = file.getSize();
+        this.checksum = file.getChecksum();
+        this.modifiedAt = file.getModifiedAt();
+
+        // Set folderId, or null if folder is not available
+        this.folderId = (file.getFolder() != null) ? file.getFolder().getId() : null;
+    }
+
+    private void addItemLinks(LinkBuilder linkBuilder, Authentication authentication) {
+        // Add HATEOAS self-link using LinkBuilder
+        this.add(linkBuilder.getFileSelfLink(this.id, authentication));
+
+        // Add link to the folder containing this file
+        if (this.folderId != null) {
+            this.add(linkBuilder.getFolderLink(this.folderId, authentication));
+        }
+    }
 }
@@ -0,0 +1,44 @@
+package com.example.text_drive.dto;
+
+import com.example.text_drive.hateoas.LinkBuilder;
+import com.example.text_drive.repository.FileSearchResult;
+import lombok.Getter;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Data Transfer Object (DTO) for a file matching a full-text content search.
+ * The snippet contains the best matching fragments of the content as HTML: the content is escaped
+ * and the matches are wrapped in <b> tags.
+ */
+@Getter
+public class FileSearchResultDTO extends RepresentationModel<FileSearchResultDTO> {
+
+    private final Long id;
+    private final String name;
+    private final Long folderId;
+    private final Float rank;
+    private final String snippet;
+
+    /**
+     * Constructor to convert a FileSearchResult projection to FileSearchResultDTO.
+     *
+     * @param result The projection to convert into a DTO.
+     * @param linkBuilder The LinkBuilder instance to generate HATEOAS links.
+     * @param authentication The Authentication object for link generation.
+     */
+    public FileSearchResultDTO(FileSearchResult result, LinkBuilder linkBuilder, Authentication authentication) {
+        this.id = result.getId();
+        this.name = result.getName();
+        this.folderId = result.getFolderId();
+        this.rank = result.getRank();
+        this.snippet = result.getSnippet();
+
+        // Add HATEOAS links using LinkBuilder
+        this.add(linkBuilder.getFileSelfLink(this.id, authentication)); // Self-link, returns the file with content
+        this.add(linkBuilder.getDownloadFileLink(this.id, authentication)); // Link to download the content
+        if (this.folderId != null) {
+            this.add(linkBuilder.getFolderLink(this.folderId, authentication)); // Link to the folder of the file
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.text_drive.dto;
+
+import com.example.text_drive.hateoas.LinkBuilder;
+import com.example.text_drive.repository.FileSummary;
+import lombok.Getter;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.security.core.Authentication;
+import java.time.Instant;
+
+/**
+ * Data Transfer Object (DTO) with the metadata of a file, used in file listings.
+ * It never contains the content, which is only available through the single-file and download endpoints.
+ */
+@Getter
+public class FileSummaryDTO extends RepresentationModel<FileSummaryDTO> {
+
+    private final Long id;
+    private final String name;
+    private final Long size;
+    private final String checksum;
+    private final Instant modifiedAt;
+    private final Long folderId;
+
+    /**
+     * Constructor to convert a FileSummary projection to FileSummaryDTO.
+     *
+     * @param file The projection to convert into a DTO.
+     * @param linkBuilder The LinkBuilder instance to generate HATEOAS links.
+     * @param authentication The Authentication object for link generation.
+     */
+    public FileSummaryDTO(FileSummary file, LinkBuilder linkBuilder, Authentication authentication) {
+        this.id = file.getId();
+        this.name = file.getName();
+        this.size = file.getSize();
+        this.checksum = file.getChecksum();
+        this.modifiedAt = file.getModifiedAt();
+        this.folderId = file.getFolderId();
+
+        // Add HATEOAS links using LinkBuilder
+        this.add(linkBuilder.getFileSelfLink(this.id, authentication)); // Self-link, returns the file with content
+        this.add(linkBuilder.getDownloadFileLink(this.id, authentication)); // Link to download the content
+        if (this.folderId != null) {
+            this.add(linkBuilder.getFolderLink(this.folderId, authentication)); // Link to the folder of the file
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.text_drive.dto;
 
 import com.example.text_drive.hateoas.LinkBuilder;
+import com.example.text_drive.hateoas.LinkMode;
 import com.example.text_drive.model.Folder;
+import com.example.text_drive.service.SystemUserService;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.Link;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 import java.util.List;
@@ -16,9 +20,11 @@ import java.util.stream.Collectors;
 public class FolderMapper {
 
     private final LinkBuilder linkBuilder;
+    private final SystemUserService systemUserService;
 
-    public FolderMapper(LinkBuilder linkBuilder) {
+    public FolderMapper(LinkBuilder linkBuilder, SystemUserService systemUserService) {
         this.linkBuilder = linkBuilder;
+        this.systemUserService = systemUserService;
     }
 
     public FolderDTO toDTO(Folder folder, Authentication authentication) {
@@ -30,11 +36,8 @@ public class FolderMapper {
         dto.setId(folder.getId());
         dto.setName(folder.getName());
 
-        // Map owner to UserDTO if available
-        if (folder.getOwner() != null) {
-            UserDTO userDTO = new UserDTO(folder.getOwner());
-            dto.setOwner(userDTO);
-        }
+        // Map owner to UserDTO if available, otherwise show the system user
+        dto.setOwner(toOwnerDTO(folder));
 
         // Map files to FileDTOs using the detailed version of FileDTO
         if (folder.getFiles() != null) {
@@ -62,4 +65,77 @@ public class FolderMapper {
 
         return dto;
     }
+
+    /**
+     * Maps a folder with only its own links, and its files with only theirs (self and folder).
+     *
+     * @param folder The folder to map.
+     * @param authentication The Authentication object for link generation.
+     * @return The FolderDTO, or null if the folder is null.
+     */
+    public FolderDTO toItemDTO(Folder folder, Authentication authentication) {
+        if (folder == null) {
+            return null;
+        }
+
+        FolderDTO dto = new FolderDTO();
+        dto.setId(folder.getId());
+        dto.setName(folder.getName());
+        dto.setOwner(toOwnerDTO(folder));
+        if (folder.getFiles() != null) {
+            dto.setFiles(folder.getFiles().stream()
+                    .map(file -> FileDTO.withItemLinks(file, linkBuilder, authentication))
+                    .collect(Collectors.toList()));
+        }
+
+        dto.add(linkBuilder.getFolderSelfLink(folder.getId(), authentication));
+        dto.add(linkBuilder.getFilesByFolderIdLink(folder.getId(), authentication));
+        return dto;
+    }
+
+    private UserDTO toOwnerDTO(Folder folder) {
+        return folder.getOwner() != null ? new UserDTO(folder.getOwner()) : systemUserService.getSystemOwner();
+    }
+
+    /**
+     * Maps folders to a collection in the given link mode. In FULL mode the result is the plain list of
+     * fully linked folders (the response format of earlier versions). In MINIMAL mode the folders carry only their own links,
+     * and the links shared by all of them are added once to the collection.
+     *
+     * @param folders The folders to map.
+     * @param self The link of the collection itself.
+     * @param next The link to the next page, or null if there is none.
+     * @param linkMode The requested link mode.
+     * @param authentication The Authentication object for link generation.
+     * @return A List of FolderDTOs in FULL mode, a CollectionModel in MINIMAL mode.
+     */
+    public Object toCollection(List<Folder> folders, Link self, Link next, LinkMode linkMode, Authentication authentication) {
+        if (linkMode == LinkMode.FULL) {
+            return folders.stream()
+                    .map(folder -> toDTO(folder, authentication))
+                    .collect(Collectors.toList());
+        }
+
+        List<FolderDTO> folderDTOs = folders.stream()
+                .map(folder -> toItemDTO(folder, authentication))
+                .collect(Collectors.toList());
+        CollectionModel<FolderDTO> collectionModel = CollectionModel.of(folderDTOs, FolderDTO.class);
+        collectionModel.add(self.withSelfRel());
+        if (next != null) {
+            collectionModel.add(next);
+        }
+        collectionModel.add(linkBuilder.getUserFoldersLink(authentication));
+        collectionModel.add(linkBuilder.getCreateFolderLink());
+        collectionModel.add(linkBuilder.getSearchFoldersLink(null, authentication));
+        collectionModel.add(linkBuilder.getUpdateFolderLink(null, authentication));
+        collectionModel.add(linkBuilder.getDeleteFolderLink(null, authentication));
+        collectionModel.add(linkBuilder.getUploadFileLink());
+        collectionModel.add(linkBuilder.getFileLink(null, authentication));
+        collectionModel.add(linkBuilder.getSearchFilesLink(null, authentication));
+        collectionModel.add(linkBuilder.getDownloadFileLink(null, authentication));
+        collectionModel.add(linkBuilder.getRenameFileLink(null, authentication));
+        collectionModel.add(linkBuilder.getDeleteFileLink(null, authentication));
+        collectionModel.add(linkBuilder.getRegisterLink());
+        return collectionModel;
+    }
 }
\ No newline at end of file
@@ -13,18 +13,21 @@ import org.springframework.security.core.Authentication;
 public class LoginResponseDTO extends RepresentationModel<LoginResponseDTO> {
 
     private final String token;
+    private final String refreshToken;
     private final UserResponseDTO user;
 
     /**
-     * Constructs a new LoginResponseDTO with the provided token, user details, and HATEOAS links.
+     * Constructs a new LoginResponseDTO with the provided tokens, user details, and HATEOAS links.
      *
      * @param token The authentication token.
+     * @param refreshToken The single-use token to get a new authentication token when it expires.
      * @param user The user details.
      * @param linkBuilder The LinkBuilder instance used to generate HATEOAS links.
      * @param authentication The Authentication object used for link generation.
      */
-    public LoginResponseDTO(String token, UserResponseDTO user, LinkBuilder linkBuilder, Authentication authentication) {
+    public LoginResponseDTO(String token, String refreshToken, UserResponseDTO user, LinkBuilder linkBuilder, Authentication authentication) {
         this.token = token;
+        this.refreshToken = refreshToken;
         this.user = user;
 
         // Add HATEOAS links using LinkBuilder
@@ -41,5 +44,7 @@ public class LoginResponseDTO extends RepresentationModel<LoginResponseDTO> {
         this.add(linkBuilder.getDownloadFileLink(null, authentication)); // Link to download a file
         this.add(linkBuilder.getRenameFileLink(null, authentication)); // Link to rename a file
         this.add(linkBuilder.getDeleteFileLink(null, authentication)); // Link to delete a file
+        this.add(linkBuilder.getRefreshLink()); // Link to renew the token
+        this.add(linkBuilder.getLogoutLink()); // Link to log out
     }
 }
\ No newline at end of file
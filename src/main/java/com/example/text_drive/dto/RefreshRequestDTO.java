@@ -0,0 +1,15 @@
+package com.example.text_drive.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// For refresh request
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshRequestDTO {
+    private String refreshToken;
+}
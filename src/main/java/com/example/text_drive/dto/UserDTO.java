@@ -5,12 +5,11 @@ import com.example.text_drive.model.User;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.Setter;
 
 import java.util.UUID;
 
+// Read-only, one instance is shared as the owner of all folders without one (see SystemUserService)
 @Getter
-@Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserDTO {
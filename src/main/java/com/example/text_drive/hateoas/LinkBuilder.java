@@ -4,25 +4,130 @@ import com.example.text_drive.controller.FileController;
 import com.example.text_drive.controller.FolderController;
 import com.example.text_drive.controller.UserController;
 import com.example.text_drive.dto.LoginRequestDTO;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.TemplateVariable;
+import org.springframework.hateoas.TemplateVariables;
+import org.springframework.hateoas.UriTemplate;
 import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class responsible for generating HATEOAS links for controllers.
- * It uses WebMvcLinkBuilder to create links dynamically based on the controller methods.
+ * Each controller method is resolved once with WebMvcLinkBuilder at startup into a URI template,
+ * so building a link is a string expansion instead of a proxied method call with reflection.
+ * Links without arguments are built once per base URI and shared.
+ * Links are absolute, prefixed with the base URI of the current request (resolved once per request).
  */
 @Component
 public class LinkBuilder {
 
+    // Request attribute caching the base URI of the current request
+    private static final String BASE_URI_ATTRIBUTE = LinkBuilder.class.getName() + ".baseUri";
+
+    // Most base URIs shared links are kept for, a client can send any Host header
+    private static final int MAX_SHARED_BASE_URIS = 16;
+
     //Placeholder for LoginRequestDTO
     private final LoginRequestDTO loginRequestPlaceholder = new LoginRequestDTO("username", "password");
 
     //Placeholder for Authentication
     private final Authentication authenticationPlaceholder = null; // Or a mock authentication if needed
 
+    private final LinkTemplate userSelf;
+    private final LinkTemplate register;
+    private final LinkTemplate login;
+    private final LinkTemplate refresh;
+    private final LinkTemplate logout;
+    private final LinkTemplate userDetails;
+    private final LinkTemplate folderSelf;
+    private final LinkTemplate createFolder;
+    private final LinkTemplate getFolder;
+    private final LinkTemplate userFolders;
+    private final LinkTemplate searchFolders;
+    private final LinkTemplate deleteFolder;
+    private final LinkTemplate updateFolder;
+    private final LinkTemplate filesByFolderId;
+    private final LinkTemplate fileSelf;
+    private final LinkTemplate uploadFile;
+    private final LinkTemplate replaceFileContent;
+    private final LinkTemplate getFile;
+    private final LinkTemplate downloadFile;
+    private final LinkTemplate searchFiles;
+    private final LinkTemplate deleteFile;
+    private final LinkTemplate renameFile;
+
+    /**
+     * Resolves the link templates of all controller methods. Arguments that vary per link are passed as null,
+     * which leaves them as template variables.
+     */
+    public LinkBuilder() {
+        UserController users = WebMvcLinkBuilder.methodOn(UserController.class);
+        FolderController folders = WebMvcLinkBuilder.methodOn(FolderController.class);
+        FileController files = WebMvcLinkBuilder.methodOn(FileController.class);
+
+        this.userSelf = new LinkTemplate(users.getUser(null, authenticationPlaceholder),
+                IanaLinkRelations.SELF, "HTTP Method: GET");
+        this.register = new LinkTemplate(users.createUser(null),
+                LinkRelation.of("register"), "HTTP Method: POST");
+        this.login = new LinkTemplate(users.login(loginRequestPlaceholder, null, authenticationPlaceholder),
+                LinkRelation.of("login"), "HTTP Method: POST");
+        this.refresh = new LinkTemplate(users.refresh(null, authenticationPlaceholder),
+                LinkRelation.of("refresh"), "HTTP Method: POST");
+        this.logout = new LinkTemplate(users.logout(authenticationPlaceholder),
+                LinkRelation.of("logout"), "HTTP Method: POST");
+        this.userDetails = new LinkTemplate(users.getUser(null, authenticationPlaceholder),
+                LinkRelation.of("user-details"), "HTTP Method: GET");
+
+        this.folderSelf = new LinkTemplate(folders.getFolder(null, authenticationPlaceholder),
+                IanaLinkRelations.SELF, "HTTP Method: GET");
+        this.createFolder = new LinkTemplate(folders.createFolder(null, authenticationPlaceholder),
+                LinkRelation.of("create-folder"), "HTTP Method: POST");
+        this.getFolder = new LinkTemplate(folders.getFolder(null, authenticationPlaceholder),
+                LinkRelation.of("get-folder"), "HTTP Method: GET");
+        this.userFolders = new LinkTemplate(folders.getUserFolders(null, null, null, null, authenticationPlaceholder),
+                LinkRelation.of("get-user-folders"), "HTTP Method: GET");
+        this.searchFolders = new LinkTemplate(folders.searchFoldersByName(null, null, null, null, authenticationPlaceholder),
+                LinkRelation.of("search-folders"), "HTTP Method: GET");
+        this.deleteFolder = new LinkTemplate(folders.deleteFolder(null, authenticationPlaceholder),
+                LinkRelation.of("delete-folder"), "HTTP Method: DELETE (Requires ROLE_ADMIN)"); //To inform that Admin is needed for this
+        this.updateFolder = new LinkTemplate(folders.updateFolder(null, null, authenticationPlaceholder),
+                LinkRelation.of("update-folder"), "HTTP Method: PUT");
+        this.filesByFolderId = new LinkTemplate(files.getFilesByFolderId(null, authenticationPlaceholder),
+                LinkRelation.of("files-in-folder"), "HTTP Method: GET");
+
+        //Placeholders for the upload folder and the new name of a file
+        Long longPlaceholder = 1L;
+        String stringPlaceholder = "placeholder";
+        this.fileSelf = new LinkTemplate(files.getFile(null, authenticationPlaceholder),
+                IanaLinkRelations.SELF, "HTTP Method: GET");
+        this.uploadFile = new LinkTemplate(files.uploadFile(null, longPlaceholder, authenticationPlaceholder),
+                LinkRelation.of("upload-file"), "HTTP Method: PUT");
+        this.replaceFileContent = new LinkTemplate(files.replaceFileContent(null, null, authenticationPlaceholder),
+                LinkRelation.of("replace-file-content"), "HTTP Method: PUT");
+        this.getFile = new LinkTemplate(files.getFile(null, authenticationPlaceholder),
+                LinkRelation.of("get-file"), "HTTP Method: GET");
+        this.downloadFile = new LinkTemplate(files.downloadFile(null, null, null, authenticationPlaceholder),
+                LinkRelation.of("download-file"), "HTTP Method: GET");
+        this.searchFiles = new LinkTemplate(files.searchFilesByName(null, null, authenticationPlaceholder),
+                LinkRelation.of("search-files"), "HTTP Method: GET");
+        this.deleteFile = new LinkTemplate(files.deleteFile(null, authenticationPlaceholder),
+                LinkRelation.of("delete-file"), "HTTP Method: DELETE");
+        this.renameFile = new LinkTemplate(files.renameFile(null, stringPlaceholder, authenticationPlaceholder),
+                LinkRelation.of("rename-file"), "HTTP Method: PUT");
+    }
+
     //UserController Links
     /**
      * Generates a self-link for a user.
@@ -31,9 +136,7 @@ public class LinkBuilder {
      * @return A self-link for the user.
      */
     public Link getUserSelfLink(UUID userId) {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(UserController.class).getUser(userId, authenticationPlaceholder)
-        ).withSelfRel().withTitle("HTTP Method: GET");
+        return userSelf.expand(userId);
     }
 
     /**
@@ -42,9 +145,7 @@ public class LinkBuilder {
      * @return A link for user registration.
      */
     public Link getRegisterLink() {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(UserController.class).createUser(null)
-        ).withRel("register").withTitle("HTTP Method: POST");
+        return register.expand();
     }
 
     /**
@@ -53,9 +154,25 @@ public class LinkBuilder {
      * @return A link for user login.
      */
     public Link getLoginLink() {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(UserController.class).login(loginRequestPlaceholder, authenticationPlaceholder)
-        ).withRel("login").withTitle("HTTP Method: POST");
+        return login.expand();
+    }
+
+    /**
+     * Generates a link for renewing a token with a refresh token.
+     *
+     * @return A link for token refresh.
+     */
+    public Link getRefreshLink() {
+        return refresh.expand();
+    }
+
+    /**
+     * Generates a logout link.
+     *
+     * @return A link for user logout.
+     */
+    public Link getLogoutLink() {
+        return logout.expand();
     }
 
     /**
@@ -65,9 +182,7 @@ public class LinkBuilder {
      * @return A link for user details.
      */
     public Link getUserDetailsLink(UUID userId) {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(UserController.class).getUser(userId, authenticationPlaceholder)
-        ).withRel("user-details").withTitle("HTTP Method: GET");
+        return userDetails.expand(userId);
     }
 
     //FolderController Links
@@ -80,9 +195,7 @@ public class LinkBuilder {
      * @return A self-link for the folder.
      */
     public Link getFolderSelfLink(Long folderId, Authentication authentication) {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FolderController.class).getFolder(folderId, authentication)
-        ).withSelfRel().withTitle("HTTP Method: GET");
+        return folderSelf.expand(folderId);
     }
 
     /**
@@ -91,9 +204,7 @@ public class LinkBuilder {
      * @return A link for creating a folder.
      */
     public Link getCreateFolderLink() {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FolderController.class).createFolder(null, authenticationPlaceholder)
-        ).withRel("create-folder").withTitle("HTTP Method: POST");
+        return createFolder.expand();
     }
 
     /**
@@ -104,9 +215,7 @@ public class LinkBuilder {
      * @return A link for retrieving a folder.
      */
     public Link getFolderLink(Long folderId, Authentication authentication) {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FolderController.class).getFolder(folderId, authentication)
-        ).withRel("get-folder").withTitle("HTTP Method: GET");
+        return getFolder.expand(folderId);
     }
 
     /**
@@ -116,9 +225,19 @@ public class LinkBuilder {
      * @return A link for retrieving user folders.
      */
     public Link getUserFoldersLink(Authentication authentication) {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FolderController.class).getUserFolders(authentication)
-        ).withRel("get-user-folders").withTitle("HTTP Method: GET");
+        return userFolders.expand();
+    }
+
+    /**
+     * Generates a link for one page of the folders of a user.
+     *
+     * @param after The id of the last folder of the previous page, or null for the first page.
+     * @param limit The page size.
+     * @param authentication The authentication object.
+     * @return A link for the page of user folders.
+     */
+    public Link getUserFoldersPageLink(Long after, int limit, Authentication authentication) {
+        return userFolders.expand(after, limit);
     }
 
     /**
@@ -129,9 +248,7 @@ public class LinkBuilder {
      * @return A link for searching folders.
      */
     public Link getSearchFoldersLink(String name, Authentication authentication) {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FolderController.class).searchFoldersByName(name, authentication)
-        ).withRel("search-folders").withTitle("HTTP Method: GET");
+        return searchFolders.expand(name);
     }
 
     /**
@@ -142,10 +259,7 @@ public class LinkBuilder {
      * @return A link for deleting a folder.
      */
     public Link getDeleteFolderLink(Long folderId, Authentication authentication) {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FolderController.class).deleteFolder(folderId, authentication)
-        ).withRel("delete-folder")
-                .withTitle("HTTP Method: DELETE (Requires ROLE_ADMIN)"); //To inform that Admin is needed for this
+        return deleteFolder.expand(folderId);
     }
 
     /**
@@ -156,9 +270,7 @@ public class LinkBuilder {
      * @return A link for updating a folder.
      */
     public Link getUpdateFolderLink(Long folderId, Authentication authentication) {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FolderController.class).updateFolder(folderId, null, authentication)
-        ).withRel("update-folder").withTitle("HTTP Method: PUT");
+        return updateFolder.expand(folderId);
     }
 
     /**
@@ -169,9 +281,7 @@ public class LinkBuilder {
      * @return A link for retrieving files in a folder.
      */
     public Link getFilesByFolderIdLink(Long folderId, Authentication authentication) {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FileController.class).getFilesByFolderId(folderId, authentication)
-        ).withRel("files-in-folder").withTitle("HTTP Method: GET");
+        return filesByFolderId.expand(folderId);
     }
 
     //FileController Links
@@ -184,9 +294,7 @@ public class LinkBuilder {
      * @return A self-link for the file.
      */
     public Link getFileSelfLink(Long fileId, Authentication authentication) {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FileController.class).getFile(fileId, authentication)
-        ).withSelfRel().withTitle("HTTP Method: GET");
+        return fileSelf.expand(fileId);
     }
 
     /**
@@ -195,11 +303,18 @@ public class LinkBuilder {
      * @return A link for uploading a file.
      */
     public Link getUploadFileLink() {
-        //Placeholder for Long (e.g., folderId, fileId)
-        Long longPlaceholder = 1L;
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FileController.class).uploadFile(null, longPlaceholder, authenticationPlaceholder)
-        ).withRel("upload-file").withTitle("HTTP Method: PUT");
+        return uploadFile.expand();
+    }
+
+    /**
+     * Generates a link for replacing the content of a file with the raw request body.
+     *
+     * @param fileId The ID of the file.
+     * @param authentication The authentication object.
+     * @return A link for replacing the content of a file.
+     */
+    public Link getReplaceFileContentLink(Long fileId, Authentication authentication) {
+        return replaceFileContent.expand(fileId);
     }
 
     /**
@@ -210,9 +325,7 @@ public class LinkBuilder {
      * @return A link for retrieving a file.
      */
     public Link getFileLink(Long fileId, Authentication authentication) {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FileController.class).getFile(fileId, authentication)
-        ).withRel("get-file").withTitle("HTTP Method: GET");
+        return getFile.expand(fileId);
     }
 
     /**
@@ -223,9 +336,7 @@ public class LinkBuilder {
      * @return A link for downloading a file.
      */
     public Link getDownloadFileLink(Long fileId, Authentication authentication) {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FileController.class).downloadFile(fileId, authentication)
-        ).withRel("download-file").withTitle("HTTP Method: GET");
+        return downloadFile.expand(fileId);
     }
 
     /**
@@ -236,9 +347,23 @@ public class LinkBuilder {
      * @return A link for searching files.
      */
     public Link getSearchFilesLink(String name, Authentication authentication) {
+        return searchFiles.expand(name);
+    }
+
+    /**
+     * Generates a link for searching the content of files.
+     *
+     * @param query The search query.
+     * @param page The page number.
+     * @param size The page size.
+     * @param authentication The authentication object.
+     * @return A link for searching the content of files.
+     */
+    public Link getSearchFilesByContentLink(String query, int page, int size, Authentication authentication) {
+        // Built per call, it is added once per search response and its page arguments cannot be left open
         return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FileController.class).searchFilesByName(name, authentication)
-        ).withRel("search-files").withTitle("HTTP Method: GET");
+                WebMvcLinkBuilder.methodOn(FileController.class).searchFilesByContent(query, page, size, authentication)
+        ).withRel("search-file-content").withTitle("HTTP Method: GET");
     }
 
     /**
@@ -249,9 +374,7 @@ public class LinkBuilder {
      * @return A link for deleting a file.
      */
     public Link getDeleteFileLink(Long fileId, Authentication authentication) {
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FileController.class).deleteFile(fileId, authentication)
-        ).withRel("delete-file").withTitle("HTTP Method: DELETE");
+        return deleteFile.expand(fileId);
     }
 
     /**
@@ -262,9 +385,94 @@ public class LinkBuilder {
      * @return A link for renaming a file.
      */
     public Link getRenameFileLink(Long fileId, Authentication authentication) {
-        String stringPlaceholder = "placeholder";
-        return WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(FileController.class).renameFile(fileId, stringPlaceholder, authentication)
-        ).withRel("rename-file").withTitle("HTTP Method: PUT");
+        return renameFile.expand(fileId);
+    }
+
+    /**
+     * Returns the base URI of the current request (scheme, host, port, context and servlet path),
+     * resolved once per request. Outside of a request, links are relative.
+     */
+    private static String currentBaseUri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return "";
+        }
+        String baseUri = (String) attributes.getAttribute(BASE_URI_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUri == null) {
+            baseUri = ServletUriComponentsBuilder.fromCurrentServletMapping().toUriString();
+            attributes.setAttribute(BASE_URI_ATTRIBUTE, baseUri, RequestAttributes.SCOPE_REQUEST);
+        }
+        return baseUri;
+    }
+
+    /**
+     * A controller method resolved into a URI template relative to the base URI, with the relation and title of its links.
+     */
+    private static final class LinkTemplate {
+
+        private final UriTemplate template;
+        private final List<String> variableNames;
+        private final LinkRelation relation;
+        private final String title;
+
+        // The link with nothing expanded, by base URI
+        private final Map<String, Link> sharedLinks = new ConcurrentHashMap<>();
+
+        LinkTemplate(Object invocation, LinkRelation relation, String title) {
+            // Outside of a request linkTo resolves against "/", giving the path of the mapping
+            this.template = UriTemplate.of(WebMvcLinkBuilder.linkTo(invocation).withSelfRel().getHref());
+            this.variableNames = template.getVariableNames();
+            this.relation = relation;
+            this.title = title;
+        }
+
+        /**
+         * Builds a link with the given values for the template variables, in the order of the template.
+         * Null values are left open as template variables, as linkTo did for null arguments,
+         * a null path variable keeps the whole link templated.
+         *
+         * @param values The values of the template variables.
+         * @return The link.
+         */
+        Link expand(Object... values) {
+            String baseUri = currentBaseUri();
+            Map<String, Object> parameters = new HashMap<>();
+            for (int i = 0; i < values.length && i < variableNames.size(); i++) {
+                if (values[i] != null) {
+                    parameters.put(variableNames.get(i), values[i]);
+                }
+            }
+            for (TemplateVariable variable : template.getVariables()) {
+                if (variable.isRequired() && !parameters.containsKey(variable.getName())) {
+                    return sharedLink(baseUri);
+                }
+            }
+            if (parameters.isEmpty()) {
+                return sharedLink(baseUri);
+            }
+            List<TemplateVariable> open = new ArrayList<>();
+            for (TemplateVariable variable : template.getVariables()) {
+                if (!parameters.containsKey(variable.getName())) {
+                    open.add(variable);
+                }
+            }
+            UriTemplate expanded = UriTemplate.of(baseUri + template.expand(parameters));
+            if (!open.isEmpty()) {
+                // Appended as {&...} after the expanded query parameters
+                expanded = expanded.with(new TemplateVariables(open));
+            }
+            return Link.of(expanded, relation).withTitle(title);
+        }
+
+        private Link sharedLink(String baseUri) {
+            Link link = sharedLinks.get(baseUri);
+            if (link == null) {
+                link = Link.of(UriTemplate.of(baseUri + template), relation).withTitle(title);
+                if (sharedLinks.size() < MAX_SHARED_BASE_URIS) {
+                    sharedLinks.putIfAbsent(baseUri, link);
+                }
+            }
+            return link;
+        }
     }
-}
\ No newline at end of file
+}
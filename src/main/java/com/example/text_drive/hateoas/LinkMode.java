@@ -0,0 +1,45 @@
+package com.example.text_drive.hateoas;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * How many links a collection response carries.
+ * FULL repeats the navigation links on every item (the default, as before).
+ * MINIMAL gives items only their own links and puts the shared links once on the collection,
+ * requested with "?links=minimal" or a "links=minimal" parameter on the Accept media type
+ * (e.g. "Accept: application/hal+json;links=minimal").
+ */
+public enum LinkMode {
+    FULL,
+    MINIMAL;
+
+    private static final String PARAMETER = "links";
+    private static final String MINIMAL_VALUE = "minimal";
+
+    /**
+     * Resolves the link mode of a request, the query parameter takes precedence over the Accept header.
+     *
+     * @param links The value of the "links" query parameter, or null.
+     * @param accept The Accept header, or null.
+     * @return The requested link mode, FULL if none or an unknown one is requested.
+     */
+    public static LinkMode of(String links, String accept) {
+        if (links != null) {
+            return links.equalsIgnoreCase(MINIMAL_VALUE) ? MINIMAL : FULL;
+        }
+        if (accept == null) {
+            return FULL;
+        }
+        try {
+            for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+                if (MINIMAL_VALUE.equalsIgnoreCase(mediaType.getParameter(PARAMETER))) {
+                    return MINIMAL;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // An unparsable Accept header is rejected by content negotiation, the mode does not matter then
+        }
+        return FULL;
+    }
+}
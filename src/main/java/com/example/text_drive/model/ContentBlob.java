@@ -0,0 +1,33 @@
+package com.example.text_drive.model;
+
+import com.example.text_drive.storage.ContentCodec;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import java.time.Instant;
+
+/**
+ * Entity tracking how many files reference a piece of stored content.
+ * Content is stored once per checksum; when the last file referencing it is deleted
+ * the blob is marked as released and later removed from the ContentStore by the sweeper.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class ContentBlob {
+
+    @Id
+    @Column(name = "content_key", length = 64)
+    private String contentKey;  // Key of the content in the ContentStore
+
+    private long size;  // Size of the content in bytes
+
+    @Enumerated(EnumType.STRING)
+    private ContentCodec codec;  // The codec the content is stored with
+
+    private int refCount;  // Number of files pointing at this content
+
+    private Instant releasedAt;  // When the reference count last dropped to zero, null while referenced
+}
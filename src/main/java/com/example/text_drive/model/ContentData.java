@@ -0,0 +1,25 @@
+package com.example.text_drive.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entity holding file content in the database, used by the PostgreSQL content store.
+ * Rows are keyed by the SHA-256 checksum of the content and never loaded together with File.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class ContentData {
+
+    @Id
+    @Column(name = "content_key", length = 64)
+    private String key;
+
+    //Bytea instead of text, to store the content exactly as it was uploaded
+    @Column(columnDefinition = "bytea", nullable = false)
+    private byte[] data;
+}
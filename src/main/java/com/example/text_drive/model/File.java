@@ -1,15 +1,18 @@
 package com.example.text_drive.model;
 
+import com.example.text_drive.storage.ContentCodec;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import java.time.Instant;
 
 /**
  * Represents a File entity in the system.
  * This class is mapped to a database table using JPA annotations.
+ * The content of the file is kept in a ContentStore and referenced by its content key.
  */
 @Entity
 @Getter
@@ -25,10 +28,17 @@ public class File {
     @NotBlank(message = "File name cannot be blank")
     private String name;
 
-    //Text instead of "standard" varchar, to enable bigger files
-    @NotBlank(message = "File content cannot be empty")
-    @Column(columnDefinition = "TEXT")
-    private String content;
+    @Column(length = 64)
+    private String contentKey;  // Key of the content in the ContentStore
+
+    @Enumerated(EnumType.STRING)
+    private ContentCodec codec;  // The codec the content is stored with, null for content stored as uploaded
+
+    private Long size;  // Size of the content in bytes (UTF-8)
+
+    private String checksum;  // SHA-256 of the content, hex encoded
+
+    private Instant modifiedAt;
 
     @ManyToOne
     @JoinColumn(name = "folder_id")
@@ -37,13 +47,11 @@ public class File {
     /**
      * Constructor to create a new File instance with specified parameters.
      *
-     * @param name    The name of the file.
-     * @param content The content of the file.
-     * @param folder  The folder to which the file belongs.
+     * @param name   The name of the file.
+     * @param folder The folder to which the file belongs.
      */
-    public File(String name, String content, Folder folder) {
+    public File(String name, Folder folder) {
         this.name = name;
-        this.content = content;
         this.folder = folder;
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.example.text_drive.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import java.util.List;
 
 /**
@@ -20,10 +21,12 @@ public class Folder {
 
     private String name;
 
-    @ManyToOne
-    private User owner;  // The owner of the folder (User entity)
+    @ManyToOne(fetch = FetchType.LAZY)
+    private User owner;  // The owner of the folder (User entity), fetched with the folder by the listing queries
 
+    // Files of folders loaded without them are fetched for up to 50 folders per query
     @OneToMany(mappedBy = "folder", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
     private List<File> files;  // The list of files inside the folder. Cascade operations are applied.
 
 }
\ No newline at end of file
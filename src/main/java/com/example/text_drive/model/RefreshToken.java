@@ -0,0 +1,45 @@
+package com.example.text_drive.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Entity for a single-use refresh token, used to get a new access token without logging in again.
+ * Only the SHA-256 hash of the token is stored. Each refresh replaces the token with a new one of the same family;
+ * a used token that is presented again means it was stolen, and the whole family is revoked.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, nullable = false, length = 64)
+    private String tokenHash;  // SHA-256 hash of the token, the token itself is only known to the client
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @Column(nullable = false)
+    private UUID familyId;  // Shared by all tokens rotated from the same login
+
+    private Instant expiresAt;
+
+    private Instant usedAt;  // When the token was exchanged, null while it can still be used
+
+    public RefreshToken(String tokenHash, User user, UUID familyId, Instant expiresAt) {
+        this.tokenHash = tokenHash;
+        this.user = user;
+        this.familyId = familyId;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.text_drive.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,7 +12,9 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "application_user")
+// One user per OpenID-connect identity, the OpenID-connect upsert conflicts on this constraint
+@Table(name = "application_user", uniqueConstraints = @UniqueConstraint(
+        name = "application_user_oidc_key", columnNames = {"oidc_provider", "oidc_id"}))
 @Getter
 @Setter
 public class User implements UserDetails {
@@ -30,6 +33,10 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Role role = Role.ROLE_USER;  // Default role is ROLE_USER
 
+    // Version of the user's tokens, increased to revoke all tokens issued before (e.g. on logout)
+    @ColumnDefault("0")
+    private int tokenVersion;
+
     public User() {}
 
     public User(String username, String password, Role role) {
@@ -0,0 +1,63 @@
+package com.example.text_drive.repository;
+
+import com.example.text_drive.model.ContentBlob;
+import com.example.text_drive.storage.ContentCodec;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ContentBlobRepository extends JpaRepository<ContentBlob, String> {
+
+    // Registers newly written content without references, so the sweeper collects it if no file ever points at it.
+    // The codec of content that is already registered is kept, since that is how it was stored
+    @Modifying
+    @Query(value = "INSERT INTO content_blob (content_key, size, codec, ref_count, released_at) " +
+            "VALUES (:key, :size, :codec, 0, now()) " +
+            "ON CONFLICT (content_key) DO UPDATE SET released_at = now() WHERE content_blob.ref_count <= 0",
+            nativeQuery = true)
+    void register(@Param("key") String key, @Param("size") long size, @Param("codec") String codec);
+
+    // Registers content that was (re)written to the store, with the codec it was written with this time
+    @Modifying
+    @Query(value = "INSERT INTO content_blob (content_key, size, codec, ref_count, released_at) " +
+            "VALUES (:key, :size, :codec, 0, now()) " +
+            "ON CONFLICT (content_key) DO UPDATE SET codec = EXCLUDED.codec, " +
+            "released_at = CASE WHEN content_blob.ref_count <= 0 THEN now() ELSE content_blob.released_at END",
+            nativeQuery = true)
+    void registerStored(@Param("key") String key, @Param("size") long size, @Param("codec") String codec);
+
+    // Serializes writers and the sweeper on one content key until the end of the transaction.
+    // An advisory lock is used since the blob row may not exist yet
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtextextended(:key, 0))", nativeQuery = true)
+    int lockContentKey(@Param("key") String key);
+
+    @Query("select b.codec from ContentBlob b where b.contentKey = :key")
+    Optional<ContentCodec> findCodecByContentKey(@Param("key") String key);
+
+    @Modifying
+    @Query(value = "UPDATE content_blob SET ref_count = ref_count + 1, released_at = NULL " +
+            "WHERE content_key = :key", nativeQuery = true)
+    int acquire(@Param("key") String key);
+
+    @Modifying
+    @Query(value = "UPDATE content_blob SET ref_count = ref_count - 1, " +
+            "released_at = CASE WHEN ref_count <= 1 THEN now() ELSE released_at END " +
+            "WHERE content_key = :key", nativeQuery = true)
+    int release(@Param("key") String key);
+
+    @Query("select b.contentKey from ContentBlob b where b.refCount <= 0 and b.releasedAt < :cutoff")
+    List<String> findOrphanKeys(@Param("cutoff") Instant cutoff, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ContentBlob b where b.contentKey = :key and b.refCount <= 0 and b.releasedAt < :cutoff")
+    int deleteOrphan(@Param("key") String key, @Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,18 @@
+package com.example.text_drive.repository;
+
+import com.example.text_drive.model.ContentData;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ContentDataRepository extends JpaRepository<ContentData, String> {
+
+    // Content is keyed by its checksum, a row that already exists is overwritten since it may be stored with another codec
+    @Modifying
+    @Query(value = "INSERT INTO content_data (content_key, data) VALUES (:key, :data) " +
+            "ON CONFLICT (content_key) DO UPDATE SET data = EXCLUDED.data", nativeQuery = true)
+    int upsert(@Param("key") String key, @Param("data") byte[] data);
+}
@@ -0,0 +1,11 @@
+package com.example.text_drive.repository;
+
+import java.time.Instant;
+
+/**
+ * Projection of a File with what a search index needs to tell whether its document of the file is up to date.
+ */
+public interface FileIndexState {
+    Long getId();
+    Instant getModifiedAt();
+}
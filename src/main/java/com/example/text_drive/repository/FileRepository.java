@@ -3,13 +3,83 @@ package com.example.text_drive.repository;
 import com.example.text_drive.model.File;
 import com.example.text_drive.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface FileRepository extends JpaRepository<File, Long> {
     Optional<File> findByIdAndFolderOwner(Long id, User owner);
-    List<File> findByNameContainingIgnoreCaseAndFolderOwner(String name, User owner);
-    List<File> findByFolderId(Long folderId);
-}
\ No newline at end of file
+
+    @Query("select f.id as id, f.name as name, f.size as size, f.checksum as checksum, " +
+            "f.modifiedAt as modifiedAt, f.folder.id as folderId " +
+            "from File f where upper(f.name) like upper(concat('%', ?#{escape([0])}, '%')) escape ?#{escapeCharacter()} " +
+            "and f.folder.owner = ?2 order by f.name")
+    List<FileSummary> findSummariesByNameContainingIgnoreCaseAndFolderOwner(String name, User owner);
+
+    @Query("select f.id as id, f.name as name, f.size as size, f.checksum as checksum, " +
+            "f.modifiedAt as modifiedAt, f.folder.id as folderId " +
+            "from File f where f.folder.id = ?1 order by f.name")
+    List<FileSummary> findSummariesByFolderId(Long folderId);
+
+    @Query("select f.id as id, f.name as name, f.size as size, f.checksum as checksum, " +
+            "f.modifiedAt as modifiedAt, f.folder.id as folderId " +
+            "from File f where f.id in ?1")
+    List<FileSummary> findSummariesByIdIn(List<Long> ids);
+
+    // Fuzzy name search, the % operator uses the pg_trgm index on upper(name) created by SchemaInitializer
+    @Query(value = "SELECT f.id FROM file f JOIN folder d ON d.id = f.folder_id " +
+            "WHERE d.owner_id = :ownerId AND upper(f.name) % upper(:name) " +
+            "ORDER BY similarity(upper(f.name), upper(:name)) DESC, f.id LIMIT :limit", nativeQuery = true)
+    List<Long> findIdsByNameSimilarTo(@Param("name") String name, @Param("ownerId") UUID ownerId,
+                                      @Param("limit") int limit);
+
+    // Full-text search, the file.search_vector column and the content_search_text table are created by SchemaInitializer.
+    // The text is stored once per content blob, files with the same content only get their own search vector
+    @Modifying
+    @Query(value = "INSERT INTO content_search_text (content_key, search_text) VALUES (:key, :text) " +
+            "ON CONFLICT (content_key) DO NOTHING", nativeQuery = true)
+    void insertSearchText(@Param("key") String key, @Param("text") String text);
+
+    @Modifying
+    @Query(value = "UPDATE file f SET search_vector = setweight(to_tsvector('simple', :name), 'A') || " +
+            "setweight(to_tsvector('simple', coalesce((SELECT t.search_text FROM content_search_text t " +
+            "WHERE t.content_key = f.content_key), '')), 'B') " +
+            "WHERE f.id = :id", nativeQuery = true)
+    void updateSearchVector(@Param("id") Long id, @Param("name") String name);
+
+    @Query(value = "SELECT id FROM file WHERE search_vector IS NULL", nativeQuery = true)
+    List<Long> findIdsWithoutSearchDocument();
+
+    // Files in folders without an owner are left out, they are not searchable and never indexed in memory
+    @Query("select f.id as id, f.modifiedAt as modifiedAt from File f where f.folder.owner is not null")
+    List<FileIndexState> findIndexStates();
+
+    // Snippets are only computed for the requested page, after ranking and limiting in the inner query,
+    // from the text stored for the content of each file.
+    // Matches are marked with the private-use characters U+E000 and U+E001 (removed from the text first), not with markup,
+    // PostgresContentSearchIndex escapes the snippet and then turns the marks into <b> tags
+    @Query(value = "SELECT r.id AS id, r.name AS name, r.folder_id AS \"folderId\", r.rank AS rank, " +
+            "ts_headline('simple', translate(coalesce(t.search_text, ''), chr(57344) || chr(57345), ''), " +
+            "websearch_to_tsquery('simple', :query), " +
+            "'StartSel=\"' || chr(57344) || '\", StopSel=\"' || chr(57345) || '\", MaxFragments=2, MaxWords=20, MinWords=5') " +
+            "AS snippet " +
+            "FROM (SELECT f.id, f.name, f.folder_id, f.content_key, " +
+            "ts_rank(f.search_vector, websearch_to_tsquery('simple', :query)) AS rank " +
+            "FROM file f JOIN folder d ON d.id = f.folder_id " +
+            "WHERE d.owner_id = :ownerId AND f.search_vector @@ websearch_to_tsquery('simple', :query) " +
+            "ORDER BY rank DESC, f.id LIMIT :limit OFFSET :offset) r " +
+            "LEFT JOIN content_search_text t ON t.content_key = r.content_key " +
+            "ORDER BY r.rank DESC, r.id", nativeQuery = true)
+    List<FileSearchResult> searchContent(@Param("query") String query, @Param("ownerId") UUID ownerId,
+                                         @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query(value = "SELECT count(*) FROM file f JOIN folder d ON d.id = f.folder_id " +
+            "WHERE d.owner_id = :ownerId AND f.search_vector @@ websearch_to_tsquery('simple', :query)",
+            nativeQuery = true)
+    long countContentMatches(@Param("query") String query, @Param("ownerId") UUID ownerId);
+}
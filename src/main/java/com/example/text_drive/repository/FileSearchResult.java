@@ -0,0 +1,12 @@
+package com.example.text_drive.repository;
+
+/**
+ * Projection of a file matching a full-text search, with its rank and a highlighted snippet of the content.
+ */
+public interface FileSearchResult {
+    Long getId();
+    String getName();
+    Long getFolderId();
+    Float getRank();
+    String getSnippet();
+}
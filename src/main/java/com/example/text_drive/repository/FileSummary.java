@@ -0,0 +1,16 @@
+package com.example.text_drive.repository;
+
+import java.time.Instant;
+
+/**
+ * Projection of a File with only its metadata, used for listings.
+ * Queries returning this projection never read file content.
+ */
+public interface FileSummary {
+    Long getId();
+    String getName();
+    Long getSize();
+    String getChecksum();
+    Instant getModifiedAt();
+    Long getFolderId();
+}
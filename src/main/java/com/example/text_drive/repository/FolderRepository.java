@@ -2,14 +2,45 @@ package com.example.text_drive.repository;
 
 import com.example.text_drive.model.Folder;
 import com.example.text_drive.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface FolderRepository extends JpaRepository<Folder, Long> {
+    // Listings load the owner and files with the folders, a fixed number of statements for any number of folders
+    @EntityGraph(attributePaths = {"owner", "files"})
     List<Folder> findByOwner(User owner);
+
+    // Keyset pagination, uses the (owner_id, id) index created by SchemaInitializer.
+    // Files are not fetched here, fetching a collection would make Hibernate paginate in memory, they are batch fetched instead
+    @EntityGraph(attributePaths = "owner")
+    Slice<Folder> findByOwnerAndIdGreaterThanOrderByIdAsc(User owner, Long afterId, Pageable pageable);
+
+    // Ids of one page of a user's folders by keyset, the folders are then fetched with their files by findByIdIn
+    @Query("select f.id from Folder f where f.owner = :owner and f.id > :afterId order by f.id")
+    List<Long> findIdsByOwnerAfter(@Param("owner") User owner, @Param("afterId") Long afterId, Pageable pageable);
+
     Optional<Folder> findByIdAndOwner(Long id, User owner);
+
+    @EntityGraph(attributePaths = {"owner", "files"})
     List<Folder> findByNameContainingIgnoreCaseAndOwner(String name, User owner);
+
+    @EntityGraph(attributePaths = {"owner", "files"})
+    List<Folder> findByIdIn(Collection<Long> ids);
+
+    // Fuzzy name search, the % operator uses the pg_trgm index on upper(name) created by SchemaInitializer
+    @Query(value = "SELECT f.id FROM folder f " +
+            "WHERE f.owner_id = :ownerId AND upper(f.name) % upper(:name) " +
+            "ORDER BY similarity(upper(f.name), upper(:name)) DESC, f.id LIMIT :limit", nativeQuery = true)
+    List<Long> findIdsByNameSimilarTo(@Param("name") String name, @Param("ownerId") UUID ownerId,
+                                      @Param("limit") int limit);
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.example.text_drive.repository;
+
+import com.example.text_drive.model.RefreshToken;
+import com.example.text_drive.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // Marks a token as used unless it already was, so of two concurrent refreshes only one succeeds
+    @Modifying
+    @Query("update RefreshToken t set t.usedAt = ?2 where t.id = ?1 and t.usedAt is null")
+    int markUsed(Long id, Instant usedAt);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.familyId = ?1")
+    int deleteByFamilyId(UUID familyId);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.user = ?1")
+    int deleteByUser(User user);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < ?1")
+    int deleteExpired(Instant now);
+}
@@ -2,6 +2,8 @@ package com.example.text_drive.repository;
 
 import com.example.text_drive.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -9,4 +11,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findById(UUID userId);
     Optional<User> findByOidcId(String oidcId);
+
+    @Query("select u.tokenVersion from User u where u.id = ?1")
+    Optional<Integer> findTokenVersionById(UUID userId);
+
+    // Creates the user or returns the existing one in one statement, relies on the unique index created by SchemaInitializer.
+    // The no-op update makes RETURNING return the existing row, a new row gets the given id.
+    @Query(value = "INSERT INTO application_user (id, username, role, oidc_id, oidc_provider, token_version) " +
+            "VALUES (:id, :username, 'ROLE_USER', :oidcId, :oidcProvider, 0) " +
+            "ON CONFLICT (oidc_provider, oidc_id) DO UPDATE SET oidc_id = EXCLUDED.oidc_id " +
+            "RETURNING *", nativeQuery = true)
+    User upsertOpenIdUser(@Param("id") UUID id, @Param("username") String username,
+                          @Param("oidcId") String oidcId, @Param("oidcProvider") String oidcProvider);
 }
\ No newline at end of file
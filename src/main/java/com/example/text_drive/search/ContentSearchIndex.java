@@ -0,0 +1,58 @@
+package com.example.text_drive.search;
+
+import com.example.text_drive.model.File;
+import com.example.text_drive.model.User;
+import com.example.text_drive.repository.FileSearchResult;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Full-text index over the names and content of files.
+ * Which implementation is used is selected with the property "text-drive.search.engine".
+ */
+public interface ContentSearchIndex {
+
+    /**
+     * Adds a file to the index, replacing its previous document if any.
+     *
+     * @param file The file to index.
+     * @param text The start of the text content of the file to index.
+     */
+    void update(File file, String text);
+
+    /**
+     * Updates the name of an indexed file, keeping its content.
+     *
+     * @param file The renamed file.
+     */
+    void rename(File file);
+
+    /**
+     * Removes deleted files from the index.
+     *
+     * @param owner The owner of the files.
+     * @param fileIds The ids of the deleted files.
+     */
+    void remove(User owner, Collection<Long> fileIds);
+
+    /**
+     * Searches the files of a user, ranked by relevance.
+     * The query supports web search syntax: quoted phrases, "or" and "-" to exclude words.
+     *
+     * @param query The search query.
+     * @param owner The user whose files are searched.
+     * @param pageable The page of results to return.
+     * @return The page of matching files, most relevant first.
+     */
+    Page<FileSearchResult> search(String query, User owner, Pageable pageable);
+
+    /**
+     * Finds the files that are missing from the index or changed since they were indexed,
+     * and drops files from the index that no longer exist. Called once after startup, by SearchIndexBackfill.
+     *
+     * @return The ids of the files to index again.
+     */
+    List<Long> findStaleFileIds();
+}
@@ -0,0 +1,226 @@
+package com.example.text_drive.search;
+
+import com.example.text_drive.model.File;
+import com.example.text_drive.model.User;
+import com.example.text_drive.repository.FileIndexState;
+import com.example.text_drive.repository.FileRepository;
+import com.example.text_drive.repository.FileSearchResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Search index kept in memory, one inverted index per user, so searches never reach the database.
+ * Each user's index is written as a segment file on the local disk and read back at startup.
+ * Changes are applied once the transaction changing the file commits, and written to disk periodically.
+ * The index does not keep file content, so search results have no snippet.
+ * Searches are always made by the owner of the files, so files in folders without an owner are not indexed.
+ */
+@Component
+@ConditionalOnProperty(name = "text-drive.search.engine", havingValue = "memory")
+public class InvertedContentSearchIndex implements ContentSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvertedContentSearchIndex.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final FileRepository fileRepository;
+    private final Path root;
+    private final Map<UUID, UserIndex> indexes = new ConcurrentHashMap<>();
+
+    public InvertedContentSearchIndex(
+            FileRepository fileRepository,
+            @Value("${text-drive.search.index.path:data/index}") String path
+    ) throws IOException {
+        this.fileRepository = fileRepository;
+        this.root = Paths.get(path).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        loadSegments();
+    }
+
+    @Override
+    public void update(File file, String text) {
+        UUID ownerId = ownerIdOf(file);
+        if (ownerId == null) {
+            return;
+        }
+        int fileId = Math.toIntExact(file.getId());
+        String name = file.getName();
+        Long folderId = file.getFolder().getId();
+        afterCommit(() -> indexFor(ownerId).update(fileId, name, folderId, file.getModifiedAt(), text));
+    }
+
+    @Override
+    public void rename(File file) {
+        UUID ownerId = ownerIdOf(file);
+        if (ownerId == null) {
+            return;
+        }
+        int fileId = Math.toIntExact(file.getId());
+        String name = file.getName();
+        afterCommit(() -> indexFor(ownerId).rename(fileId, name, file.getModifiedAt()));
+    }
+
+    @Override
+    public void remove(User owner, Collection<Long> fileIds) {
+        if (owner == null) {
+            return;  // Files without an owner were never indexed
+        }
+        List<Integer> ids = fileIds.stream().map(Math::toIntExact).toList();
+        afterCommit(() -> indexFor(owner.getId()).remove(ids));
+    }
+
+    @Override
+    public Page<FileSearchResult> search(String query, User owner, Pageable pageable) {
+        UserIndex index = indexes.get(owner.getId());
+        List<SearchHit> hits = index != null ? index.search(SearchQuery.parse(query)) : List.of();
+
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        return new PageImpl<>(new ArrayList<>(hits.subList(from, to)), pageable, hits.size());
+    }
+
+    /**
+     * Compares the modification times in the index with the database. Files changed while the
+     * application was down, or while another search engine was configured, are indexed again.
+     */
+    @Override
+    public List<Long> findStaleFileIds() {
+        Map<Long, Long> current = new HashMap<>();
+        for (FileIndexState state : fileRepository.findIndexStates()) {
+            current.put(state.getId(), UserIndex.toMillis(state.getModifiedAt()));
+        }
+
+        Map<Long, Long> indexed = new HashMap<>();
+        for (UserIndex index : indexes.values()) {
+            List<Integer> deleted = new ArrayList<>();
+            index.getModificationTimes().forEach((fileId, modifiedAt) -> {
+                if (current.containsKey((long) fileId)) {
+                    indexed.put((long) fileId, modifiedAt);
+                } else {
+                    deleted.add(fileId);
+                }
+            });
+            index.remove(deleted);
+        }
+
+        List<Long> stale = new ArrayList<>();
+        current.forEach((fileId, modifiedAt) -> {
+            if (!modifiedAt.equals(indexed.get(fileId))) {
+                stale.add(fileId);
+            }
+        });
+        return stale;
+    }
+
+    /**
+     * Writes the indexes changed since the last flush to their segment files.
+     */
+    @Scheduled(fixedDelayString = "${text-drive.search.index.flush-interval:PT30S}")
+    public void flush() {
+        indexes.forEach((ownerId, index) -> {
+            if (index.isDirty()) {
+                try {
+                    writeSegment(ownerId, index);
+                } catch (IOException e) {
+                    logger.warn("Failed to write the search index segment of user {}", ownerId, e);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Returns the id of the owner of the folder of a file, or null if the folder has no owner.
+     */
+    private static UUID ownerIdOf(File file) {
+        User owner = file.getFolder().getOwner();
+        return owner != null ? owner.getId() : null;
+    }
+
+    private UserIndex indexFor(UUID ownerId) {
+        return indexes.computeIfAbsent(ownerId, id -> new UserIndex());
+    }
+
+    /**
+     * Runs the action after the current transaction commits, or right away outside of a transaction,
+     * so the index never contains changes that were rolled back.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Reads the segment file of every user. A segment that cannot be read is skipped,
+     * its files are then reported as stale and indexed again.
+     */
+    private void loadSegments() throws IOException {
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(root, "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : segments) {
+                String fileName = segment.getFileName().toString();
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+                    UUID ownerId = UUID.fromString(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+                    indexes.put(ownerId, UserIndex.readFrom(in));
+                } catch (IOException | IllegalArgumentException e) {
+                    logger.warn("Skipping unreadable search index segment {}", segment, e);
+                }
+            }
+        }
+        logger.info("Loaded search index segments of {} users", indexes.size());
+    }
+
+    /**
+     * Writes a segment to a temporary file and moves it into place, so a crash never leaves half a segment.
+     */
+    private void writeSegment(UUID ownerId, UserIndex index) throws IOException {
+        Path temp = Files.createTempFile(root, "segment-", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                index.writeTo(out);
+            }
+            Files.move(temp, root.resolve(ownerId + SEGMENT_SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.text_drive.search;
+
+import com.example.text_drive.model.File;
+import com.example.text_drive.model.User;
+import com.example.text_drive.repository.FileRepository;
+import com.example.text_drive.repository.FileSearchResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Search index kept in the file table, as a tsvector column with a GIN index (created by SchemaInitializer).
+ * The text snippets are made from is stored once per content blob in the content_search_text table,
+ * so the file row stays small and files with the same content share it.
+ * This is the default implementation.
+ */
+@Component
+@ConditionalOnProperty(name = "text-drive.search.engine", havingValue = "postgres", matchIfMissing = true)
+@RequiredArgsConstructor
+public class PostgresContentSearchIndex implements ContentSearchIndex {
+
+    // Marks around the matches in snippets, chr(57344) and chr(57345) in FileRepository.searchContent
+    private static final String MATCH_START = "\uE000";
+    private static final String MATCH_END = "\uE001";
+
+    private final FileRepository fileRepository;
+
+    /**
+     * Stores the text unless it is already stored for the content, then updates the search vector of the file.
+     * The text row is deleted with the content blob, when the sweeper collects it.
+     */
+    @Override
+    public void update(File file, String text) {
+        if (file.getContentKey() != null && !text.isEmpty()) {
+            fileRepository.insertSearchText(file.getContentKey(), text);
+        }
+        fileRepository.updateSearchVector(file.getId(), file.getName());
+    }
+
+    @Override
+    public void rename(File file) {
+        fileRepository.updateSearchVector(file.getId(), file.getName());
+    }
+
+    /**
+     * Nothing to do, the search document is deleted with the row of the file.
+     */
+    @Override
+    public void remove(User owner, Collection<Long> fileIds) {
+    }
+
+    /**
+     * Searches with the GIN index. The snippets are plain text with the matches marked by ts_headline,
+     * they are HTML-escaped before the marks become <b> tags, so file content can never inject markup.
+     */
+    @Override
+    public Page<FileSearchResult> search(String query, User owner, Pageable pageable) {
+        long total = fileRepository.countContentMatches(query, owner.getId());
+        List<FileSearchResult> results = total == 0
+                ? List.of()
+                : fileRepository.searchContent(query, owner.getId(), pageable.getPageSize(), pageable.getOffset()).stream()
+                        .<FileSearchResult>map(result -> new SearchHit(result.getId(), result.getName(),
+                                result.getFolderId(), result.getRank(), toHtml(result.getSnippet())))
+                        .toList();
+        return new PageImpl<>(results, pageable, total);
+    }
+
+    @Override
+    public List<Long> findStaleFileIds() {
+        return fileRepository.findIdsWithoutSearchDocument();
+    }
+
+    /**
+     * Escapes a snippet for HTML and wraps the marked matches in <b> tags.
+     */
+    static String toHtml(String snippet) {
+        if (snippet == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(snippet).replace(MATCH_START, "<b>").replace(MATCH_END, "</b>");
+    }
+}
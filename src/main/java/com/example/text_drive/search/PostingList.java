@@ -0,0 +1,378 @@
+package com.example.text_drive.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Posting list of one term: the ids of the files containing the term, with the positions of the term in each file.
+ * Entries are sorted by file id and stored as variable-length encoded deltas in a single byte array,
+ * so an entry costs a few bytes instead of an object. Updates are not encoded right away: they go to a small
+ * segment of pending entries, which reads merge with the encoded ones, and are merged into the byte array when
+ * the index is flushed or the segment grows too large, so an update does not re-encode the whole list.
+ * Lists are not thread-safe, UserIndex guards them with its lock.
+ */
+final class PostingList {
+
+    // Shared empty list, only ever read
+    static final PostingList EMPTY = new PostingList();
+
+    // Pending entries are merged once there are more than this many, or more than a quarter of the encoded entries
+    private static final int MIN_MERGE_THRESHOLD = 64;
+
+    private static final int[] REMOVED = new int[0];
+
+    private byte[] data;
+    private int encodedSize;  // Number of entries in data
+    private int size;  // Number of entries with the pending ones applied
+    private final TreeMap<Integer, int[]> pending = new TreeMap<>();  // Added or replaced entries, REMOVED for removed ones
+
+    PostingList() {
+        this(new byte[0], 0);
+    }
+
+    private PostingList(byte[] data, int size) {
+        this.data = data;
+        this.encodedSize = size;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of files in the list.
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Returns the ids of all files in the list, in ascending order.
+     */
+    int[] fileIds() {
+        int[] fileIds = new int[size];
+        Cursor cursor = cursor();
+        for (int i = 0; cursor.next(); i++) {
+            fileIds[i] = cursor.fileId();
+        }
+        return fileIds;
+    }
+
+    /**
+     * Returns the positions of the term in a file, or an empty array if the file is not in the list.
+     */
+    int[] positions(int fileId) {
+        int[] pendingPositions = pending.get(fileId);
+        if (pendingPositions != null) {
+            return pendingPositions;
+        }
+        Cursor cursor = cursor();
+        return cursor.advanceTo(fileId) && cursor.fileId() == fileId ? cursor.positions() : new int[0];
+    }
+
+    /**
+     * Sets the positions of the term in a file, replacing its previous entry if any.
+     *
+     * @param fileId The id of the file.
+     * @param positions The positions of the term in the file, in ascending order, not empty.
+     */
+    void put(int fileId, int[] positions) {
+        checkWritable();
+        if (!contains(fileId)) {
+            size++;
+        }
+        pending.put(fileId, positions);
+        mergeIfLarge();
+    }
+
+    /**
+     * Removes the file from the list, does nothing if it is not in the list.
+     */
+    void remove(int fileId) {
+        checkWritable();
+        if (!contains(fileId)) {
+            return;
+        }
+        size--;
+        if (encodedContains(fileId)) {
+            pending.put(fileId, REMOVED);
+            mergeIfLarge();
+        } else {
+            pending.remove(fileId);
+        }
+    }
+
+    /**
+     * Merges the pending entries into the encoded entries.
+     */
+    void merge() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Encoder encoder = new Encoder(data.length + pending.size() * 8);
+        Cursor cursor = cursor();
+        while (cursor.next()) {
+            encoder.add(cursor.fileId(), cursor.positions());
+        }
+        data = encoder.toByteArray();
+        encodedSize = encoder.size;
+        pending.clear();
+    }
+
+    /**
+     * Writes the list, merging the pending entries first.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        merge();
+        out.writeInt(encodedSize);
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    static PostingList readFrom(DataInput in) throws IOException {
+        int size = in.readInt();
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        return new PostingList(data, size);
+    }
+
+    private void checkWritable() {
+        if (this == EMPTY) {
+            throw new UnsupportedOperationException("The empty posting list is shared and cannot be changed");
+        }
+    }
+
+    private void mergeIfLarge() {
+        if (pending.size() > Math.max(MIN_MERGE_THRESHOLD, encodedSize / 4)) {
+            merge();
+        }
+    }
+
+    private boolean contains(int fileId) {
+        int[] pendingPositions = pending.get(fileId);
+        return pendingPositions != null ? pendingPositions.length > 0 : encodedContains(fileId);
+    }
+
+    /**
+     * Checks if the encoded entries contain the file, without decoding positions or allocating.
+     */
+    private boolean encodedContains(int fileId) {
+        Decoder decoder = new Decoder();
+        int entryFileId = 0;
+        for (int i = 0; i < encodedSize; i++) {
+            entryFileId += decoder.readVarInt();
+            if (entryFileId >= fileId) {
+                return entryFileId == fileId;
+            }
+            decoder.skipVarInts(decoder.readVarInt());
+        }
+        return false;
+    }
+
+    /**
+     * Iterates over the entries of the list in file id order, the pending entries merged with the encoded ones.
+     * Positions are only decoded when they are asked for, boolean queries only need the file ids.
+     */
+    final class Cursor {
+
+        private final Decoder decoder = new Decoder();
+        private final Iterator<Map.Entry<Integer, int[]>> pendingEntries = pending.entrySet().iterator();
+        private int remaining = encodedSize;
+
+        // The next encoded entry, if one has been read ahead
+        private boolean encodedLoaded;
+        private int encodedFileId;
+        private int encodedPositionsOffset;
+        private int encodedPositionCount;
+
+        // The next pending entry, if one has been read ahead
+        private Map.Entry<Integer, int[]> pendingEntry;
+
+        // The current entry
+        private boolean positioned;
+        private int fileId;
+        private int[] pendingPositions;  // Positions of the current entry if it is pending, otherwise null
+        private int positionsOffset;
+        private int positionCount;
+
+        /**
+         * Moves to the next entry.
+         *
+         * @return False if there are no more entries.
+         */
+        boolean next() {
+            while (true) {
+                if (!encodedLoaded && remaining > 0) {
+                    loadEncoded();
+                }
+                if (pendingEntry == null && pendingEntries.hasNext()) {
+                    pendingEntry = pendingEntries.next();
+                }
+
+                if (pendingEntry != null && (!encodedLoaded || pendingEntry.getKey() <= encodedFileId)) {
+                    int pendingFileId = pendingEntry.getKey();
+                    int[] positions = pendingEntry.getValue();
+                    pendingEntry = null;
+                    if (encodedLoaded && encodedFileId == pendingFileId) {
+                        encodedLoaded = false;  // Replaced or removed by the pending entry
+                    }
+                    if (positions.length == 0) {
+                        continue;
+                    }
+                    fileId = pendingFileId;
+                    pendingPositions = positions;
+                    positionCount = positions.length;
+                    positioned = true;
+                    return true;
+                }
+
+                if (encodedLoaded) {
+                    encodedLoaded = false;
+                    fileId = encodedFileId;
+                    pendingPositions = null;
+                    positionsOffset = encodedPositionsOffset;
+                    positionCount = encodedPositionCount;
+                    positioned = true;
+                    return true;
+                }
+
+                positioned = false;
+                return false;
+            }
+        }
+
+        /**
+         * Moves forward to the first entry with a file id greater than or equal to the target.
+         *
+         * @return False if there is no such entry.
+         */
+        boolean advanceTo(int target) {
+            if (positioned && fileId >= target) {
+                return true;
+            }
+            while (next()) {
+                if (fileId >= target) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int fileId() {
+            return fileId;
+        }
+
+        int positionCount() {
+            return positionCount;
+        }
+
+        int[] positions() {
+            if (pendingPositions != null) {
+                return pendingPositions;
+            }
+            Decoder positionDecoder = new Decoder(positionsOffset);
+            int[] positions = new int[positionCount];
+            int position = 0;
+            for (int i = 0; i < positionCount; i++) {
+                position += positionDecoder.readVarInt();
+                positions[i] = position;
+            }
+            return positions;
+        }
+
+        private void loadEncoded() {
+            remaining--;
+            encodedFileId += decoder.readVarInt();
+            encodedPositionCount = decoder.readVarInt();
+            encodedPositionsOffset = decoder.offset;
+            decoder.skipVarInts(encodedPositionCount);
+            encodedLoaded = true;
+        }
+    }
+
+    /**
+     * Reads variable-length encoded values from the encoded entries.
+     */
+    private final class Decoder {
+
+        private int offset;
+
+        Decoder() {
+            this(0);
+        }
+
+        Decoder(int offset) {
+            this.offset = offset;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        void skipVarInts(int count) {
+            for (int i = 0; i < count; i++) {
+                readVarInt();
+            }
+        }
+    }
+
+    /**
+     * Encodes entries added in ascending file id order.
+     */
+    private static final class Encoder {
+
+        private byte[] buffer;
+        private int length;
+        private int size;
+        private int lastFileId;
+
+        Encoder(int capacity) {
+            this.buffer = new byte[Math.max(capacity, 16)];
+        }
+
+        void add(int fileId, int[] positions) {
+            writeVarInt(fileId - lastFileId);
+            lastFileId = fileId;
+            writeVarInt(positions.length);
+            int lastPosition = 0;
+            for (int position : positions) {
+                writeVarInt(position - lastPosition);
+                lastPosition = position;
+            }
+            size++;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+
+        private void writeVarInt(int value) {
+            if (length + 5 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            while ((value & ~0x7F) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+    }
+}
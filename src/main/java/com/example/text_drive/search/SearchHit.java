@@ -0,0 +1,19 @@
+package com.example.text_drive.search;
+
+import com.example.text_drive.repository.FileSearchResult;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A file matching a content search.
+ * The in-process index does not keep the content itself, so its hits have no snippet.
+ */
+@Getter
+@AllArgsConstructor
+class SearchHit implements FileSearchResult {
+    private final Long id;
+    private final String name;
+    private final Long folderId;
+    private final Float rank;
+    private final String snippet;  // HTML, with the content escaped and the matches in <b> tags
+}
@@ -0,0 +1,92 @@
+package com.example.text_drive.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A parsed content search query, using the same web search syntax as the PostgreSQL search:
+ * words must all match, "quoted phrases" must match in order, "or" separates alternatives
+ * and a leading "-" excludes a word or phrase.
+ */
+final class SearchQuery {
+
+    /**
+     * A word or phrase of the query. A word that the tokenizer splits (e.g. "foo-bar") is matched as a phrase.
+     */
+    record Clause(List<String> terms, boolean excluded) {
+    }
+
+    // Alternatives separated by "or", a file matches if it matches all clauses of one alternative
+    private final List<List<Clause>> alternatives;
+
+    private SearchQuery(List<List<Clause>> alternatives) {
+        this.alternatives = alternatives;
+    }
+
+    List<List<Clause>> getAlternatives() {
+        return alternatives;
+    }
+
+    /**
+     * Returns the terms that are not excluded, the ones that count when ranking the matches.
+     */
+    Set<String> getIncludedTerms() {
+        Set<String> terms = new LinkedHashSet<>();
+        alternatives.forEach(clauses -> clauses.stream()
+                .filter(clause -> !clause.excluded())
+                .forEach(clause -> terms.addAll(clause.terms())));
+        return terms;
+    }
+
+    static SearchQuery parse(String query) {
+        List<List<Clause>> alternatives = new ArrayList<>();
+        List<Clause> clauses = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            boolean excluded = c == '-';
+            if (excluded) {
+                i++;
+            }
+
+            String text;
+            boolean quoted = i < query.length() && query.charAt(i) == '"';
+            if (quoted) {
+                int end = query.indexOf('"', i + 1);
+                end = end < 0 ? query.length() : end;
+                text = query.substring(i + 1, end);
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < query.length() && !Character.isWhitespace(query.charAt(end)) && query.charAt(end) != '"') {
+                    end++;
+                }
+                text = query.substring(i, end);
+                i = end;
+            }
+
+            if (!quoted && !excluded && text.equalsIgnoreCase("or")) {
+                if (!clauses.isEmpty()) {
+                    alternatives.add(clauses);
+                    clauses = new ArrayList<>();
+                }
+                continue;
+            }
+            List<String> terms = Tokenizer.tokenize(text);
+            if (!terms.isEmpty()) {
+                clauses.add(new Clause(terms, excluded));
+            }
+        }
+        if (!clauses.isEmpty()) {
+            alternatives.add(clauses);
+        }
+        return new SearchQuery(alternatives);
+    }
+}
@@ -0,0 +1,400 @@
+package com.example.text_drive.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * The inverted index of the files of one user: for each term, a posting list of the files containing it.
+ * Name terms are indexed at positions below CONTENT_OFFSET and content terms from CONTENT_OFFSET on,
+ * so a phrase never spans the name and the content, and a rename only has to touch the name positions.
+ * Searches share a read lock, updates take the write lock.
+ */
+final class UserIndex {
+
+    // First position of the content, names with more terms are only indexed up to this position
+    static final int CONTENT_OFFSET = 1024;
+
+    // A term in the name counts as much as this many occurrences in the content when ranking
+    private static final int NAME_WEIGHT = 4;
+
+    private static final int MAGIC = 0x54444958;  // "TDIX"
+    private static final int VERSION = 1;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Integer, IndexedFile> files = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean dirty;
+
+    /**
+     * What the index keeps about a file: enough to answer a search without the database,
+     * the modification time to detect stale entries, and its terms to remove it again.
+     */
+    private record IndexedFile(String name, Long folderId, long modifiedAt, String[] terms) {
+    }
+
+    /**
+     * Adds a file to the index, replacing its previous entry if any.
+     *
+     * @param fileId The id of the file.
+     * @param name The name of the file.
+     * @param folderId The id of the folder of the file.
+     * @param modifiedAt The modification time of the file.
+     * @param text The text content of the file.
+     */
+    void update(int fileId, String name, Long folderId, Instant modifiedAt, String text) {
+        Map<String, IntStream.Builder> positions = new HashMap<>();
+        addPositions(positions, Tokenizer.tokenize(name), 0, CONTENT_OFFSET);
+        addPositions(positions, Tokenizer.tokenize(text), CONTENT_OFFSET, Integer.MAX_VALUE);
+
+        lock.writeLock().lock();
+        try {
+            removeFile(fileId);
+            positions.forEach((term, builder) -> setPositions(term, fileId, builder.build().toArray()));
+            files.put(fileId, new IndexedFile(name, folderId, toMillis(modifiedAt), positions.keySet().toArray(String[]::new)));
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the name terms of a file, keeping its content terms.
+     */
+    void rename(int fileId, String name, Instant modifiedAt) {
+        Map<String, IntStream.Builder> namePositions = new HashMap<>();
+        addPositions(namePositions, Tokenizer.tokenize(name), 0, CONTENT_OFFSET);
+
+        lock.writeLock().lock();
+        try {
+            IndexedFile file = files.get(fileId);
+            if (file == null) {
+                return;
+            }
+
+            Set<String> terms = new HashSet<>(namePositions.keySet());
+            terms.addAll(Arrays.asList(file.terms()));
+            List<String> remainingTerms = new ArrayList<>();
+            for (String term : terms) {
+                IntStream contentPositions = Arrays.stream(postings.getOrDefault(term, PostingList.EMPTY).positions(fileId))
+                        .filter(position -> position >= CONTENT_OFFSET);
+                IntStream.Builder newNamePositions = namePositions.get(term);
+                int[] positions = newNamePositions == null
+                        ? contentPositions.toArray()
+                        : IntStream.concat(newNamePositions.build(), contentPositions).toArray();
+                setPositions(term, fileId, positions);
+                if (positions.length > 0) {
+                    remainingTerms.add(term);
+                }
+            }
+            files.put(fileId, new IndexedFile(name, file.folderId(), toMillis(modifiedAt), remainingTerms.toArray(String[]::new)));
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes files from the index, ids that are not indexed are ignored.
+     */
+    void remove(Iterable<Integer> fileIds) {
+        lock.writeLock().lock();
+        try {
+            fileIds.forEach(this::removeFile);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the files matching a query, ranked by relevance (most relevant first).
+     */
+    List<SearchHit> search(SearchQuery query) {
+        lock.readLock().lock();
+        try {
+            int[] matches = new int[0];
+            for (List<SearchQuery.Clause> clauses : query.getAlternatives()) {
+                matches = union(matches, match(clauses));
+            }
+            if (matches.length == 0) {
+                return List.of();
+            }
+
+            Map<Integer, Float> scores = score(matches, query.getIncludedTerms());
+            List<SearchHit> hits = new ArrayList<>(matches.length);
+            for (int fileId : matches) {
+                IndexedFile file = files.get(fileId);
+                hits.add(new SearchHit((long) fileId, file.name(), file.folderId(), scores.getOrDefault(fileId, 0f), null));
+            }
+            hits.sort(Comparator.comparing(SearchHit::getRank, Comparator.<Float>reverseOrder()).thenComparing(SearchHit::getId));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the modification time (in epoch milliseconds) of every indexed file.
+     */
+    Map<Integer, Long> getModificationTimes() {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Long> modificationTimes = new HashMap<>();
+            files.forEach((fileId, file) -> modificationTimes.put(fileId, file.modifiedAt()));
+            return modificationTimes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if the index changed since it was last written.
+     */
+    boolean isDirty() {
+        return dirty;
+    }
+
+    static long toMillis(Instant instant) {
+        return instant != null ? instant.toEpochMilli() : Long.MIN_VALUE;
+    }
+
+    /**
+     * Writes the index as a segment: the indexed files followed by the posting lists.
+     * The pending entries of the posting lists are merged first, under the write lock, which is then
+     * downgraded so searches can run while the segment is written.
+     * The terms of each file are not written, they are rebuilt from the posting lists when reading.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        lock.writeLock().lock();
+        try {
+            postings.values().forEach(PostingList::merge);
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            dirty = false;  // Updates wait for the read lock to be released, so none are missed
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(files.size());
+            for (Map.Entry<Integer, IndexedFile> entry : files.entrySet()) {
+                IndexedFile file = entry.getValue();
+                out.writeInt(entry.getKey());
+                out.writeUTF(file.name());
+                out.writeLong(file.folderId() != null ? file.folderId() : -1);
+                out.writeLong(file.modifiedAt());
+            }
+            out.writeInt(postings.size());
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads an index from a segment written by writeTo.
+     *
+     * @throws IOException if the segment cannot be read or has an unknown format.
+     */
+    static UserIndex readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Unsupported index segment format");
+        }
+
+        UserIndex index = new UserIndex();
+        Map<Integer, IndexedFile> files = new HashMap<>();
+        int fileCount = in.readInt();
+        for (int i = 0; i < fileCount; i++) {
+            int fileId = in.readInt();
+            String name = in.readUTF();
+            long folderId = in.readLong();
+            files.put(fileId, new IndexedFile(name, folderId >= 0 ? folderId : null, in.readLong(), null));
+        }
+
+        Map<Integer, List<String>> termsByFile = new HashMap<>();
+        int termCount = in.readInt();
+        for (int i = 0; i < termCount; i++) {
+            String term = in.readUTF();
+            PostingList postingList = PostingList.readFrom(in);
+            index.postings.put(term, postingList);
+            for (int fileId : postingList.fileIds()) {
+                termsByFile.computeIfAbsent(fileId, id -> new ArrayList<>()).add(term);
+            }
+        }
+
+        files.forEach((fileId, file) -> index.files.put(fileId, new IndexedFile(
+                file.name(), file.folderId(), file.modifiedAt(),
+                termsByFile.getOrDefault(fileId, List.of()).toArray(String[]::new)
+        )));
+        return index;
+    }
+
+    /**
+     * Removes a file from the posting lists of its terms, the caller holds the write lock.
+     */
+    private void removeFile(int fileId) {
+        IndexedFile file = files.remove(fileId);
+        if (file == null) {
+            return;
+        }
+        for (String term : file.terms()) {
+            setPositions(term, fileId, new int[0]);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Sets the positions of a term in a file, no positions removes the file from the posting list of the term.
+     */
+    private void setPositions(String term, int fileId, int[] positions) {
+        if (positions.length > 0) {
+            postings.computeIfAbsent(term, key -> new PostingList()).put(fileId, positions);
+            return;
+        }
+        PostingList postingList = postings.get(term);
+        if (postingList != null) {
+            postingList.remove(fileId);
+            if (postingList.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static void addPositions(Map<String, IntStream.Builder> positions, List<String> terms, int start, int end) {
+        for (int i = 0; i < terms.size() && start + i < end; i++) {
+            positions.computeIfAbsent(terms.get(i), term -> IntStream.builder()).add(start + i);
+        }
+    }
+
+    /**
+     * Finds the files matching all clauses of one alternative of a query.
+     */
+    private int[] match(List<SearchQuery.Clause> clauses) {
+        int[] matches = null;
+        for (SearchQuery.Clause clause : clauses) {
+            if (!clause.excluded()) {
+                int[] clauseMatches = match(clause);
+                matches = matches == null ? clauseMatches : intersect(matches, clauseMatches);
+            }
+        }
+        if (matches == null) {
+            return new int[0];  // Only excluded words never match, like in PostgreSQL
+        }
+        for (SearchQuery.Clause clause : clauses) {
+            if (clause.excluded()) {
+                matches = difference(matches, match(clause));
+            }
+        }
+        return matches;
+    }
+
+    private int[] match(SearchQuery.Clause clause) {
+        List<String> terms = clause.terms();
+        if (terms.size() == 1) {
+            return postings.getOrDefault(terms.get(0), PostingList.EMPTY).fileIds();
+        }
+
+        // A phrase: find the files containing all terms, then check that the terms follow each other
+        PostingList.Cursor[] cursors = new PostingList.Cursor[terms.size()];
+        int[] candidates = null;
+        for (int i = 0; i < terms.size(); i++) {
+            PostingList postingList = postings.getOrDefault(terms.get(i), PostingList.EMPTY);
+            cursors[i] = postingList.cursor();
+            candidates = candidates == null ? postingList.fileIds() : intersect(candidates, postingList.fileIds());
+        }
+
+        IntStream.Builder matches = IntStream.builder();
+        for (int fileId : candidates) {
+            int[][] positions = new int[cursors.length][];
+            for (int i = 0; i < cursors.length; i++) {
+                cursors[i].advanceTo(fileId);
+                positions[i] = cursors[i].positions();
+            }
+            if (containsPhrase(positions)) {
+                matches.add(fileId);
+            }
+        }
+        return matches.build().toArray();
+    }
+
+    private static boolean containsPhrase(int[][] positions) {
+        for (int start : positions[0]) {
+            boolean found = true;
+            for (int i = 1; i < positions.length && found; i++) {
+                found = Arrays.binarySearch(positions[i], start + i) >= 0;
+            }
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scores the matching files with a tf-idf weight per term, where name occurrences count NAME_WEIGHT times.
+     */
+    private Map<Integer, Float> score(int[] matches, Set<String> terms) {
+        Map<Integer, Float> scores = new HashMap<>();
+        for (String term : terms) {
+            PostingList postingList = postings.get(term);
+            if (postingList == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (double) files.size() / postingList.size());
+            PostingList.Cursor cursor = postingList.cursor();
+            for (int fileId : matches) {
+                if (!cursor.advanceTo(fileId)) {
+                    break;
+                }
+                if (cursor.fileId() != fileId) {
+                    continue;
+                }
+                int weight = 0;
+                for (int position : cursor.positions()) {
+                    weight += position < CONTENT_OFFSET ? NAME_WEIGHT : 1;
+                }
+                scores.merge(fileId, (float) ((1 + Math.log(weight)) * idf), Float::sum);
+            }
+        }
+        return scores;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        IntStream.Builder result = IntStream.builder();
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result.add(a[i]);
+                i++;
+                j++;
+            }
+        }
+        return result.build().toArray();
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        return IntStream.concat(Arrays.stream(a), Arrays.stream(b)).sorted().distinct().toArray();
+    }
+
+    private static int[] difference(int[] a, int[] b) {
+        return Arrays.stream(a).filter(value -> Arrays.binarySearch(b, value) < 0).toArray();
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.text_drive.security;
 
 import com.example.text_drive.model.User;
-import com.example.text_drive.repository.UserRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,19 +12,19 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.Optional;
-import java.util.UUID;
 
 /**
  * This class is a custom filter that intercepts HTTP requests to authenticate the user
- * based on a JWT token in the "Authorization" header. It validates the token, retrieves
- * the associated user from the database, and sets up the security context with the user
- * details for further processing of the request.
+ * based on a JWT token in the "Authorization" header. It validates the token, checks that
+ * it has not been revoked, builds the user from the claims of the token, and sets up the
+ * security context with the user details for further processing of the request.
+ * The user is not loaded from the database.
  */
 @RequiredArgsConstructor
 public class AuthenticationFilter extends OncePerRequestFilter {
 
     private final JWTService jwtService;  // Service used for JWT token validation
-    private final UserRepository userRepository;  // Repository used to fetch user from the database
+    private final TokenVersions tokenVersions;  // Current token versions, used to reject revoked tokens
 
     @Override
     protected void doFilterInternal(
@@ -45,18 +44,24 @@ public class AuthenticationFilter extends OncePerRequestFilter {
         String token = authHeader.substring(7);
 
         try {
-            // Validate the token and retrieve the user ID from the token
-            UUID userId = jwtService.validateToken(token);
-            Optional<User> potentialUser = userRepository.findById(userId);
+            // Validate the token and retrieve the user claims from the token
+            TokenClaims claims = jwtService.validateToken(token);
+            Optional<Integer> currentVersion = tokenVersions.getVersion(claims.getUserId());
 
             // If user is not found, respond with UNAUTHORIZED
-            if (potentialUser.isEmpty()) {
+            if (currentVersion.isEmpty()) {
                 response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "User not found");
                 return;
             }
 
-            // Retrieve the user from the database
-            User user = potentialUser.get();
+            // If the token was issued before a logout or role change, respond with UNAUTHORIZED
+            if (currentVersion.get() != claims.getTokenVersion()) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token has been revoked");
+                return;
+            }
+
+            // Build the user from the verified claims
+            User user = claims.toPrincipal();
 
             // Create authentication object with user details but no password
             UsernamePasswordAuthenticationToken authentication =
@@ -4,45 +4,160 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.text_drive.model.Role;
+import com.example.text_drive.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
 import java.util.UUID;
 
 @Service
 public class JWTService {
 
-    // Static algorithm and verifier used for signing and verifying JWTs.
-    // The secret is injected as a string from the application properties (this way, the secret is externalized and configurable).
-    private static final Algorithm algorithm = Algorithm.HMAC256("${jwt.secret}");
-    private static final JWTVerifier verifier = JWT.require(algorithm).withIssuer("auth0").build();
+    // How long a token is valid
+    static final Duration TOKEN_LIFETIME = Duration.ofMinutes(30);
+
+    // Keys used for signing and verifying JWTs (ES256), the verifier picks the public key by the "kid" header
+    private final JwtKeyRing keyRing;
+    private final JWTVerifier verifier;
+
+    // Names of the claims describing the user
+    private static final String USERNAME_CLAIM = "username";
+    private static final String ROLE_CLAIM = "role";
+    private static final String VERSION_CLAIM = "ver";
+
+    // Claims of tokens verified before, keyed by the SHA-256 hash of the token, kept until the token expires
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    /**
+     * The claims of a verified token and when the token expires.
+     */
+    private record VerifiedToken(TokenClaims claims, Instant expiresAt) {
+    }
+
+    public JWTService(
+            JwtKeyRing keyRing,
+            MeterRegistry meterRegistry,
+            @Value("${text-drive.security.verified-tokens.maximum-size:100000}") long maximumSize
+    ) {
+        this.keyRing = keyRing;
+        this.verifier = JWT.require(Algorithm.ECDSA256(keyRing)).withIssuer("auth0").build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), token.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "verified-tokens");
+    }
 
     /**
      * Generates a JWT token for a given user.
-     * The generated token includes the user's UUID as the subject and an expiration time of 30 minutes.
+     * The generated token includes the user's UUID as the subject, the username, role and token version
+     * as claims, and an expiration time of 30 minutes. It is signed with the current key of the key ring.
+     * The claims are enough to authenticate a request without loading the user from the database.
      *
-     * @param userId the UUID of the user for whom the token is being generated
+     * @param user the user for whom the token is being generated
      * @return a signed JWT token as a String
      */
-    public String generateToken(UUID userId) {
+    public String generateToken(User user) {
+        JwtKeyRing.SigningKey key = keyRing.getSigningKey();  // Same key for the header and the signature, even during a rotation
         return JWT.create()
+                .withKeyId(key.id())  // Tells verifiers which public key to use
                 .withIssuer("auth0")  // The issuer of the JWT
-                .withSubject(userId.toString())  // The subject of the token is the user's UUID
-                .withExpiresAt(Instant.now().plus(30, ChronoUnit.MINUTES))  // Set expiration time (30 minutes)
-                .sign(algorithm);  // Signs the token using the predefined algorithm
+                .withSubject(user.getId().toString())  // The subject of the token is the user's UUID
+                .withClaim(USERNAME_CLAIM, user.getUsername())
+                .withClaim(ROLE_CLAIM, user.getRole().name())
+                .withClaim(VERSION_CLAIM, user.getTokenVersion())  // Checked against TokenVersions to detect revoked tokens
+                .withExpiresAt(Instant.now().plus(TOKEN_LIFETIME))  // Set expiration time (30 minutes)
+                .sign(Algorithm.ECDSA256(key.publicKey(), key.privateKey()));  // Signs the token with the current key
     }
 
     /**
      * Validates the JWT token by checking its authenticity and expiration.
-     * If the token is valid, it returns the user UUID from the token.
+     * If the token is valid, it returns the user claims from the token.
+     * Clients reuse a token for many requests, so the claims of verified tokens are cached until the token expires
+     * and repeated requests skip the decoding and signature check. Revocation is checked by the caller on every request.
      *
      * @param token the JWT token to be validated
-     * @return the user UUID extracted from the token if it is valid
+     * @return the user UUID, username, role and token version extracted from the token if it is valid
      * @throws com.auth0.jwt.exceptions.JWTVerificationException if the token is invalid or expired
+     * @throws IllegalArgumentException if the token lacks the user claims (tokens issued by older versions)
      */
-    public UUID validateToken(String token) {
+    public TokenClaims validateToken(String token) {
+        String key = hash(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return cached.claims();
+        }
+
         DecodedJWT jwt = verifier.verify(token);  // Verify the token using the JWT verifier
-        return UUID.fromString(jwt.getSubject());  // Extract and return the user UUID (subject) from the token
+        TokenClaims claims = toClaims(jwt);
+        verifiedTokens.put(key, new VerifiedToken(claims, jwt.getExpiresAtAsInstant()));
+        return claims;
+    }
+
+    /**
+     * Verifies the JWT token without the cache of verified tokens.
+     *
+     * @param token the JWT token to be verified
+     * @return the user claims extracted from the token if it is valid
+     */
+    TokenClaims verifyToken(String token) {
+        return toClaims(verifier.verify(token));
+    }
+
+    /**
+     * Extracts the user claims from a verified token.
+     */
+    private TokenClaims toClaims(DecodedJWT jwt) {
+        String role = jwt.getClaim(ROLE_CLAIM).asString();
+        Integer version = jwt.getClaim(VERSION_CLAIM).asInt();
+        if (role == null || version == null) {
+            throw new IllegalArgumentException("Token does not contain the user claims");
+        }
+        return new TokenClaims(
+                UUID.fromString(jwt.getSubject()),  // The user UUID (subject) of the token
+                jwt.getClaim(USERNAME_CLAIM).asString(),
+                Role.valueOf(role),
+                version
+        );
+    }
+
+    /**
+     * Hashes a token with SHA-256, so the cache does not keep the tokens themselves.
+     */
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
-}
\ No newline at end of file
+}
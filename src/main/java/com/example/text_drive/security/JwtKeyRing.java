@@ -0,0 +1,279 @@
+package com.example.text_drive.security;
+
+import com.auth0.jwt.interfaces.ECDSAKeyProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rotating set of ES256 (ECDSA P-256) key pairs used to sign and verify JWTs.
+ * Tokens name their signing key in the "kid" header, verification looks the key up by id.
+ * The public keys are published as a JSON Web Key Set, so proxies and other services can verify tokens
+ * without calling this application or sharing a secret.
+ * Keys are stored as PEM files in a directory (text-drive.security.jwt.key-path, data/keys by default),
+ * and a new key is generated when the newest one is older than the rotation interval.
+ * The directory holds the private keys, so it must be kept as secret as a shared signing secret would be.
+ * All replicas of the application must share it (e.g. a mounted volume): a replica with a directory of its own
+ * signs with keys the other replicas do not know, and they reject its tokens.
+ * A new key is published for PUBLICATION_DELAY before it is used for signing, so verifiers caching the key set
+ * know it in time, and a replaced key is kept until every token it signed has expired.
+ */
+@Component
+public class JwtKeyRing implements ECDSAKeyProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    // Time a new key is published before tokens are signed with it, longer than verifiers may cache the key set
+    static final Duration PUBLICATION_DELAY = Duration.ofMinutes(10);
+
+    // Extra time a replaced key is kept, covers replicas switching to the new key up to a check interval later
+    private static final Duration RETIREMENT_MARGIN = Duration.ofMinutes(5);
+
+    private static final String PRIVATE_KEY_SUFFIX = ".key";
+    private static final String PUBLIC_KEY_SUFFIX = ".pub";
+
+    /**
+     * A key pair of the ring, identified by its key id.
+     */
+    record SigningKey(String id, ECPublicKey publicKey, ECPrivateKey privateKey, Instant createdAt) {
+    }
+
+    private final Path directory;
+    private final Duration rotationInterval;
+    private volatile Map<String, SigningKey> keys = Map.of();
+    private volatile SigningKey signingKey;
+
+    // A lock rather than synchronized, a virtual thread doing file I/O inside synchronized pins its carrier thread
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    public JwtKeyRing(
+            @Value("${text-drive.security.jwt.key-path:data/keys}") String path,
+            @Value("${text-drive.security.jwt.rotation-interval:P7D}") Duration rotationInterval
+    ) throws IOException, GeneralSecurityException {
+        this.directory = Paths.get(path).toAbsolutePath().normalize();
+        this.rotationInterval = rotationInterval;
+        Files.createDirectories(directory);
+        refresh();
+    }
+
+    /**
+     * Returns the key new tokens are signed with.
+     */
+    SigningKey getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * Returns the public key with the given id, used to verify a token by its "kid" header.
+     * Unknown ids return null, which fails the verification.
+     */
+    @Override
+    public ECPublicKey getPublicKeyById(String keyId) {
+        SigningKey key = keys.get(keyId);
+        return key != null ? key.publicKey() : null;
+    }
+
+    @Override
+    public ECPrivateKey getPrivateKey() {
+        return signingKey.privateKey();
+    }
+
+    @Override
+    public String getPrivateKeyId() {
+        return signingKey.id();
+    }
+
+    /**
+     * Returns the public keys of the ring as JSON Web Keys (RFC 7517), newest first.
+     */
+    public List<Map<String, Object>> getJsonWebKeys() {
+        return keys.values().stream()
+                .sorted(Comparator.comparing(SigningKey::createdAt).reversed())
+                .map(key -> {
+                    Map<String, Object> jwk = new LinkedHashMap<>();
+                    jwk.put("kty", "EC");
+                    jwk.put("crv", "P-256");
+                    jwk.put("use", "sig");
+                    jwk.put("alg", "ES256");
+                    jwk.put("kid", key.id());
+                    jwk.put("x", encodeCoordinate(key.publicKey().getW().getAffineX()));
+                    jwk.put("y", encodeCoordinate(key.publicKey().getW().getAffineY()));
+                    return jwk;
+                })
+                .toList();
+    }
+
+    /**
+     * Reloads the keys periodically, to pick up keys created by other replicas and to rotate when due.
+     */
+    @Scheduled(fixedDelayString = "${text-drive.security.jwt.key-check-interval:PT1M}")
+    public void checkKeys() {
+        try {
+            refresh();
+        } catch (IOException | GeneralSecurityException e) {
+            logger.warn("Failed to refresh the JWT signing keys, keeping the current ones", e);
+        }
+    }
+
+    /**
+     * Loads the keys from the directory, generates a new key if the newest one is due for rotation,
+     * picks the signing key and deletes keys that were replaced longer ago than a token lives.
+     */
+    private void refresh() throws IOException, GeneralSecurityException {
+        refreshLock.lock();
+        try {
+            refreshKeys();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void refreshKeys() throws IOException, GeneralSecurityException {
+        Map<String, SigningKey> loaded = loadKeys();
+        Instant now = Instant.now();
+
+        SigningKey newest = loaded.values().stream().max(Comparator.comparing(SigningKey::createdAt)).orElse(null);
+        if (newest == null || newest.createdAt().plus(rotationInterval).isBefore(now)) {
+            newest = generateKey();
+            loaded.put(newest.id(), newest);
+            logger.info("Generated JWT signing key {}", newest.id());
+        }
+
+        // Sign with the newest published key, or with the newest key if none is published yet (first start)
+        SigningKey signing = loaded.values().stream()
+                .filter(key -> !key.createdAt().plus(PUBLICATION_DELAY).isAfter(now))
+                .max(Comparator.comparing(SigningKey::createdAt))
+                .orElse(newest);
+
+        Instant signingSince = signing.createdAt().plus(PUBLICATION_DELAY);
+        if (signingSince.plus(JWTService.TOKEN_LIFETIME).plus(RETIREMENT_MARGIN).isBefore(now)) {
+            for (SigningKey key : List.copyOf(loaded.values())) {
+                if (key.createdAt().isBefore(signing.createdAt())) {
+                    deleteKey(key.id());
+                    loaded.remove(key.id());
+                    logger.info("Retired JWT signing key {}", key.id());
+                }
+            }
+        }
+
+        keys = Map.copyOf(loaded);
+        signingKey = signing;
+    }
+
+    private Map<String, SigningKey> loadKeys() throws IOException, GeneralSecurityException {
+        Map<String, SigningKey> loaded = new HashMap<>();
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + PRIVATE_KEY_SUFFIX)) {
+            for (Path privateKeyFile : files) {
+                String fileName = privateKeyFile.getFileName().toString();
+                String id = fileName.substring(0, fileName.length() - PRIVATE_KEY_SUFFIX.length());
+                Path publicKeyFile = directory.resolve(id + PUBLIC_KEY_SUFFIX);
+                if (Files.notExists(publicKeyFile)) {
+                    continue;
+                }
+                ECPrivateKey privateKey = (ECPrivateKey) keyFactory.generatePrivate(
+                        new PKCS8EncodedKeySpec(readPem(privateKeyFile)));
+                ECPublicKey publicKey = (ECPublicKey) keyFactory.generatePublic(
+                        new X509EncodedKeySpec(readPem(publicKeyFile)));
+                Instant createdAt = Files.getLastModifiedTime(privateKeyFile).toInstant();
+                loaded.put(id, new SigningKey(id, publicKey, privateKey, createdAt));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Generates a key pair and writes it to the directory, the private key last,
+     * so other replicas never load a key without its public half.
+     */
+    private SigningKey generateKey() throws IOException, GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+
+        String id = UUID.randomUUID().toString();
+        writePem(directory.resolve(id + PUBLIC_KEY_SUFFIX), "PUBLIC KEY", keyPair.getPublic().getEncoded());
+        Path privateKeyFile = directory.resolve(id + PRIVATE_KEY_SUFFIX);
+        writePem(privateKeyFile, "PRIVATE KEY", keyPair.getPrivate().getEncoded());
+        return new SigningKey(
+                id,
+                (ECPublicKey) keyPair.getPublic(),
+                (ECPrivateKey) keyPair.getPrivate(),
+                Files.getLastModifiedTime(privateKeyFile).toInstant()
+        );
+    }
+
+    private void deleteKey(String id) throws IOException {
+        Files.deleteIfExists(directory.resolve(id + PRIVATE_KEY_SUFFIX));
+        Files.deleteIfExists(directory.resolve(id + PUBLIC_KEY_SUFFIX));
+    }
+
+    private static byte[] readPem(Path file) throws IOException {
+        String base64 = Files.readAllLines(file, StandardCharsets.US_ASCII).stream()
+                .filter(line -> !line.startsWith("-----"))
+                .reduce("", String::concat);
+        return Base64.getMimeDecoder().decode(base64);
+    }
+
+    /**
+     * Writes a PEM file through a temporary file, readable by the owner only where the file system supports it.
+     */
+    private void writePem(Path file, String type, byte[] der) throws IOException {
+        String pem = "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, new byte[]{'\n'}).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+        Path temp = Files.createTempFile(directory, "key-", ".tmp");
+        try {
+            try {
+                Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // Not a POSIX file system, the permissions of the directory apply
+            }
+            Files.writeString(temp, pem, StandardCharsets.US_ASCII);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Encodes a P-256 curve coordinate as 32 bytes in base64url, as JSON Web Keys require.
+     */
+    private static String encodeCoordinate(BigInteger coordinate) {
+        byte[] bytes = coordinate.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(bytes.length, fixed.length);
+        System.arraycopy(bytes, bytes.length - length, fixed, fixed.length - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+}
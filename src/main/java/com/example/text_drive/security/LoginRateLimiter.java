@@ -0,0 +1,117 @@
+package com.example.text_drive.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits login attempts per username and per client IP address with token buckets,
+ * so a credential-stuffing burst is rejected before any password is hashed.
+ * A bucket holds "capacity" attempts and regains one every "refill-period".
+ * Buckets are kept in bounded caches and dropped once they have been idle long enough to be full again.
+ * Rejected attempts are counted in the "login.throttled" metric, tagged with the limit that was hit.
+ */
+@Component
+public class LoginRateLimiter {
+
+    // Longest username used as a key, longer ones are cut so keys stay small
+    private static final int MAX_USERNAME_LENGTH = 256;
+
+    private final Limit usernameLimit;
+    private final Limit ipLimit;
+
+    public LoginRateLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${text-drive.security.login-rate-limit.username.capacity:5}") int usernameCapacity,
+            @Value("${text-drive.security.login-rate-limit.username.refill-period:PT12S}") Duration usernameRefillPeriod,
+            @Value("${text-drive.security.login-rate-limit.ip.capacity:20}") int ipCapacity,
+            @Value("${text-drive.security.login-rate-limit.ip.refill-period:PT3S}") Duration ipRefillPeriod,
+            @Value("${text-drive.security.login-rate-limit.maximum-keys:100000}") long maximumKeys
+    ) {
+        this.usernameLimit = new Limit("username", usernameCapacity, usernameRefillPeriod, maximumKeys, meterRegistry);
+        this.ipLimit = new Limit("ip", ipCapacity, ipRefillPeriod, maximumKeys, meterRegistry);
+    }
+
+    /**
+     * Takes one attempt from the buckets of the client address and of the username.
+     *
+     * @param username The username of the login attempt.
+     * @param ipAddress The address of the client.
+     * @throws ResponseStatusException with 429 if either bucket is empty.
+     */
+    public void checkAttempt(String username, String ipAddress) {
+        ipLimit.acquire(ipAddress != null ? ipAddress : "unknown");
+        String key = username != null ? username.trim().toLowerCase(Locale.ROOT) : "";
+        usernameLimit.acquire(key.length() > MAX_USERNAME_LENGTH ? key.substring(0, MAX_USERNAME_LENGTH) : key);
+    }
+
+    /**
+     * The token buckets of one kind of key, with their settings and metric.
+     */
+    private static final class Limit {
+
+        private final Cache<String, TokenBucket> buckets;
+        private final long refillNanos;
+        private final long burstNanos;
+        private final Counter throttled;
+
+        Limit(String name, int capacity, Duration refillPeriod, long maximumKeys, MeterRegistry meterRegistry) {
+            this.refillNanos = refillPeriod.toNanos();
+            this.burstNanos = refillNanos * (capacity - 1);
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maximumKeys)
+                    .expireAfterAccess(refillPeriod.multipliedBy(capacity))  // Idle this long, the bucket is full again
+                    .build();
+            this.throttled = Counter.builder("login.throttled")
+                    .description("Login attempts rejected by the rate limiter")
+                    .tag("limit", name)
+                    .register(meterRegistry);
+        }
+
+        void acquire(String key) {
+            TokenBucket bucket = buckets.get(key, k -> new TokenBucket());
+            if (!bucket.tryAcquire(System.nanoTime(), refillNanos, burstNanos)) {
+                throttled.increment();
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts, try again later");
+            }
+        }
+    }
+
+    /**
+     * Lock-free token bucket, stored as the single time at which the bucket will be full again
+     * (the "theoretical arrival time" of the generic cell rate algorithm) and updated with compare-and-set.
+     */
+    private static final class TokenBucket {
+
+        private final AtomicLong fullAt = new AtomicLong(System.nanoTime());
+
+        /**
+         * Takes one token if available.
+         *
+         * @param now The current time in nanoseconds.
+         * @param refillNanos The time to regain one token.
+         * @param burstNanos The time to regain all but one token, i.e. how far fullAt may be ahead of now.
+         * @return True if a token was taken.
+         */
+        boolean tryAcquire(long now, long refillNanos, long burstNanos) {
+            while (true) {
+                long current = fullAt.get();
+                long start = current - now > 0 ? current : now;  // An idle bucket does not store more than its capacity
+                if (start - now > burstNanos) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(current, start + refillNanos)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.text_drive.security;
 
 import com.example.text_drive.model.User;
+import com.example.text_drive.service.RefreshTokenService;
 import com.example.text_drive.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -16,7 +17,6 @@ import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * Handles successful OAuth2 authentication by creating or retrieving a user
@@ -28,6 +28,7 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
 
     private final UserService userService;  // Service for user-related operations
     private final JWTService jwtService;   // Service for JWT token generation and validation
+    private final RefreshTokenService refreshTokenService;  // Service issuing refresh tokens
 
     /**
      * Handles successful OAuth2 authentication.
@@ -58,27 +59,20 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
         // Get the OAuth2 user's email (if available)
         String email = oAuth2User.getAttribute("email");
 
-        // Check if the user already exists in the database
-        Optional<User> existingUser = userService.findByOpenId(oidcId);
-        User user;
-        if (existingUser.isPresent()) {
-            user = existingUser.get();
-        } else {
-            // Create a new user with OAuth2 information
-            user = userService.createOpenIdUser(username, email, oidcId, oidcProvider);
-            System.out.println("Registered user '" + user.getUsername() + "' through OpenID-connect!");
-        }
+        // Get the existing user, or create one with the OAuth2 information, in one statement
+        User user = userService.findOrCreateOpenIdUser(username, email, oidcId, oidcProvider);
 
         // Generate a JWT token for the authenticated user
-        String token = jwtService.generateToken(user.getId());
+        String token = jwtService.generateToken(user);
 
         // Send the token back to the client as a JSON response
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
-        // Create a JSON object containing the token
+        // Create a JSON object containing the token and a refresh token
         Map<String, String> responseBody = new HashMap<>();
         responseBody.put("token", token);
+        responseBody.put("refreshToken", refreshTokenService.issue(user));
 
         // Convert the JSON object to a string and write it to the response
         response.getWriter().write(new ObjectMapper().writeValueAsString(responseBody));
@@ -1,14 +1,16 @@
 package com.example.text_drive.security;
 
-import com.example.text_drive.repository.UserRepository;
 import com.example.text_drive.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
@@ -16,6 +18,8 @@ import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Configuration class responsible for configuring Spring Security.
@@ -32,7 +36,7 @@ public class SecurityConfig {
      *
      * @param http The HttpSecurity object used to configure security settings.
      * @param jwtService The service used to manage JWT tokens.
-     * @param userRepository Repository used for user-related data access.
+     * @param tokenVersions Current token versions of the users, used to reject revoked tokens.
      * @param userService The service responsible for loading user details.
      * @return The SecurityFilterChain configured with the security settings.
      * @throws Exception If an error occurs during configuration.
@@ -41,7 +45,7 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(
             HttpSecurity http,
             JWTService jwtService,
-            UserRepository userRepository,
+            TokenVersions tokenVersions,
             UserService userService,
             OAuth2SuccessHandler oAuth2SuccessHandler
     ) throws Exception {
@@ -60,7 +64,13 @@ public class SecurityConfig {
                         // Allow unrestricted access to the POST /user and POST /user/login endpoints.
                         .requestMatchers(HttpMethod.POST, "/users/register").permitAll()
                         .requestMatchers(HttpMethod.POST, "/users/login").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/users/refresh").permitAll()
                         .requestMatchers("/oauth2/**").permitAll()
+                        // The public signing keys are needed by anyone verifying our tokens.
+                        .requestMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
+                        // Health is public for load balancers, other actuator endpoints (metrics) are for admins only.
+                        .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasAuthority("ROLE_ADMIN")
                         // Only users with the "ROLE_ADMIN" authority can delete folders.
                         .requestMatchers(HttpMethod.DELETE, "/folders/**").hasAuthority("ROLE_ADMIN")
                         // All other requests require authentication.
@@ -71,7 +81,7 @@ public class SecurityConfig {
                 })
 
                 .addFilterBefore(
-                        new AuthenticationFilter(jwtService, userRepository),
+                        new AuthenticationFilter(jwtService, tokenVersions),
                         UsernamePasswordAuthenticationFilter.class
                 );
 
@@ -80,12 +90,28 @@ public class SecurityConfig {
 
     /**
      * Provides a password encoder used for encoding passwords in the application.
-     * In this case, we are using BCryptPasswordEncoder to securely hash and check passwords.
+     * New hashes are made with the configured encoder (bcrypt with the configured cost, or Argon2)
+     * and prefixed with its id, e.g. "{bcrypt}". Hashes without a prefix were made by earlier versions
+     * with plain bcrypt. Hashes made with another encoder or a lower cost are replaced on the next login.
      *
-     * @return A PasswordEncoder instance (BCryptPasswordEncoder).
+     * @param encoderId The id of the encoder for new hashes, "bcrypt" or "argon2".
+     * @param bcryptStrength The bcrypt cost factor (log2 of the number of rounds).
+     * @return A DelegatingPasswordEncoder instance.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();  // Return an instance of BCryptPasswordEncoder.
+    public PasswordEncoder passwordEncoder(
+            @Value("${text-drive.security.password.encoder:bcrypt}") String encoderId,
+            @Value("${text-drive.security.password.bcrypt-strength:10}") int bcryptStrength
+    ) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(bcryptStrength));
+        encoders.put("argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (!encoders.containsKey(encoderId)) {
+            throw new IllegalArgumentException("Unknown password encoder: " + encoderId);
+        }
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(encoderId, encoders);
+        passwordEncoder.setDefaultPasswordEncoderForMatches(encoders.get("bcrypt"));  // Hashes without an id prefix
+        return passwordEncoder;
     }
 }
\ No newline at end of file
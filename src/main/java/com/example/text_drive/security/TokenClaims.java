@@ -0,0 +1,32 @@
+package com.example.text_drive.security;
+
+import com.example.text_drive.model.Role;
+import com.example.text_drive.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.util.UUID;
+
+/**
+ * The verified claims of a JWT: who the user is, their role, and the token version the token was issued with.
+ */
+@Getter
+@AllArgsConstructor
+public class TokenClaims {
+    private final UUID userId;
+    private final String username;
+    private final Role role;
+    private final int tokenVersion;
+
+    /**
+     * Builds the principal of an authenticated request from the claims, without loading the user.
+     * The user has no password, it is only used to identify the user and check their role.
+     *
+     * @return A User carrying the id, username, role and token version of the claims.
+     */
+    public User toPrincipal() {
+        User user = new User(username, null, role);
+        user.setId(userId);
+        user.setTokenVersion(tokenVersion);
+        return user;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.text_drive.security;
+
+import com.example.text_drive.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * In-memory table of the current token version of each user, used to reject revoked tokens.
+ * A token is only accepted while its version claim equals the version of the user, so increasing
+ * the version (on logout or a role change) revokes every token issued before.
+ * The version is stored with the user, this table only keeps it off the request path:
+ * a user is loaded once and then kept up to date by UserService. The table is bounded,
+ * an evicted user is simply loaded again. Hits and misses are published as "cache.*"
+ * metrics with the tag cache=token-versions.
+ * Versions are kept per application instance, so with several instances a revocation
+ * is only seen by the others once their entry expires (after a minute by default).
+ */
+@Component
+public class TokenVersions {
+
+    private final UserRepository userRepository;
+    private final Cache<UUID, Integer> versions;
+
+    public TokenVersions(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${text-drive.security.token-versions.maximum-size:100000}") long maximumSize,
+            @Value("${text-drive.security.token-versions.time-to-live:PT1M}") Duration timeToLive
+    ) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "token-versions");
+    }
+
+    /**
+     * Returns the current token version of a user, loading it from the database if it is not in the table.
+     *
+     * @param userId The id of the user.
+     * @return An Optional containing the version, or empty if the user does not exist.
+     */
+    public Optional<Integer> getVersion(UUID userId) {
+        Integer version = versions.getIfPresent(userId);
+        if (version != null) {
+            return Optional.of(version);
+        }
+        // Loaded outside of the cache: a loading cache queries the database while holding a lock of its map,
+        // which pins the carrier thread when running on virtual threads. putIfAbsent keeps a version set meanwhile.
+        Optional<Integer> loaded = userRepository.findTokenVersionById(userId);
+        loaded.ifPresent(loadedVersion -> versions.asMap().putIfAbsent(userId, loadedVersion));
+        return loaded;
+    }
+
+    /**
+     * Records the new token version of a user after it was saved.
+     *
+     * @param userId The id of the user.
+     * @param version The version stored with the user.
+     */
+    public void setVersion(UUID userId, int version) {
+        versions.put(userId, version);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.text_drive.service;
+
+import com.example.text_drive.repository.ContentBlobRepository;
+import com.example.text_drive.storage.ContentCodec;
+import com.example.text_drive.storage.ContentStore;
+import com.example.text_drive.storage.StagedContent;
+import com.example.text_drive.storage.StoredContent;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service class that deduplicates stored content with reference counts.
+ * Files with identical content share one blob in the ContentStore; blobs nobody references
+ * any more are collected by a background sweeper after a grace period.
+ * Writers and the sweeper take a transaction-scoped lock on the content key, so the sweeper never deletes
+ * content that a writer has just found to be stored.
+ */
+@Service
+public class ContentBlobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentBlobService.class);
+
+    // Maximum number of orphaned blobs collected per sweep
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    private final ContentStore contentStore;
+    private final ContentBlobRepository contentBlobRepository;
+    private final Duration sweepGracePeriod;
+    private final ContentCodec codec;
+    private final TransactionTemplate transactionTemplate;
+
+    public ContentBlobService(
+            ContentStore contentStore,
+            ContentBlobRepository contentBlobRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${text-drive.storage.sweep-grace-period:PT1H}") Duration sweepGracePeriod,
+            @Value("${text-drive.storage.codec:none}") ContentCodec codec
+    ) {
+        this.contentStore = contentStore;
+        this.contentBlobRepository = contentBlobRepository;
+        this.sweepGracePeriod = sweepGracePeriod;
+        this.codec = codec;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Writes content to the ContentStore, encoded with the configured codec, and registers the blob without references.
+     * The content is staged first, without a database connection. Storing and registering it then run in one short
+     * transaction of their own, so content from an upload that fails later is still known to the sweeper.
+     * Content that is already stored and registered is not written again, and keeps the codec it was first stored with;
+     * content the sweeper removed in the meantime is written again.
+     * Must not be called inside another transaction, the lock on the content key is held until that one commits.
+     *
+     * @param content The content to store.
+     * @return The key, size, checksum and codec of the stored content.
+     * @throws IOException If the content cannot be read or written.
+     */
+    public StoredContent write(InputStream content) throws IOException {
+        try (StagedContent staged = contentStore.stage(content, codec)) {
+            return transactionTemplate.execute(status -> register(staged));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Stores the staged content unless it is already stored and registered, then registers it.
+     * Runs under the lock on the content key, so the sweeper cannot delete the content in between.
+     */
+    private StoredContent register(StagedContent staged) {
+        StoredContent stored = staged.getStoredContent();
+        String key = stored.getKey();
+        contentBlobRepository.lockContentKey(key);
+        try {
+            Optional<ContentCodec> registeredCodec = contentBlobRepository.findCodecByContentKey(key);
+            if (registeredCodec.isPresent() && contentStore.exists(key)) {
+                contentBlobRepository.register(key, stored.getSize(), codec.name());
+                return new StoredContent(key, stored.getSize(), stored.getChecksum(), registeredCodec.get());
+            }
+            staged.store();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        contentBlobRepository.registerStored(key, stored.getSize(), codec.name());
+        return stored;
+    }
+
+    /**
+     * Adds a reference from a file to a blob.
+     *
+     * @param contentKey The key of the blob.
+     */
+    @Transactional
+    public void acquire(String contentKey) {
+        if (contentBlobRepository.acquire(contentKey) == 0) {
+            throw new IllegalStateException("No content registered with key " + contentKey);
+        }
+    }
+
+    /**
+     * Removes a reference from a file to a blob, the blob is collected once no references are left.
+     *
+     * @param contentKey The key of the blob, ignored if null.
+     */
+    @Transactional
+    public void release(String contentKey) {
+        if (contentKey != null) {
+            contentBlobRepository.release(contentKey);
+        }
+    }
+
+    /**
+     * Deletes blobs that have not been referenced for longer than the grace period.
+     * The grace period keeps content that was just written, but not yet referenced, from being collected.
+     */
+    @Scheduled(fixedDelayString = "${text-drive.storage.sweep-interval:PT10M}")
+    public void sweepOrphans() {
+        Instant cutoff = Instant.now().minus(sweepGracePeriod);
+        List<String> orphanKeys = contentBlobRepository.findOrphanKeys(cutoff, PageRequest.of(0, SWEEP_BATCH_SIZE));
+
+        int collected = 0;
+        for (String contentKey : orphanKeys) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> deleteOrphan(contentKey, cutoff)))) {
+                    collected++;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Failed to delete orphaned content {}", contentKey, e);
+            }
+        }
+        if (collected > 0) {
+            logger.info("Collected {} orphaned content blobs", collected);
+        }
+    }
+
+    /**
+     * Deletes one orphaned blob and its content under the lock on the content key.
+     * The row is deleted first and only if it is still unreferenced; if the content cannot be deleted
+     * the transaction is rolled back, so the row is kept and the blob is collected by a later sweep.
+     * If the commit fails after the content was deleted, the row is kept without content; no file references it,
+     * and a writer of the same content stores it again since it checks that the content exists.
+     *
+     * @return True if the blob was collected.
+     */
+    private boolean deleteOrphan(String contentKey, Instant cutoff) {
+        contentBlobRepository.lockContentKey(contentKey);
+        if (contentBlobRepository.deleteOrphan(contentKey, cutoff) == 0) {
+            return false;  // Referenced again, or registered again by a writer since the keys were listed
+        }
+        try {
+            contentStore.delete(contentKey);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+}
@@ -4,15 +4,38 @@ import com.example.text_drive.model.File;
 import com.example.text_drive.model.Folder;
 import com.example.text_drive.model.User;
 import com.example.text_drive.repository.FileRepository;
+import com.example.text_drive.repository.FileSearchResult;
+import com.example.text_drive.repository.FileSummary;
 import com.example.text_drive.repository.FolderRepository;
+import com.example.text_drive.search.ContentSearchIndex;
+import com.example.text_drive.storage.ContentCodec;
+import com.example.text_drive.storage.ContentStore;
+import com.example.text_drive.storage.DecodedContentResource;
+import com.example.text_drive.storage.PrefixCapturingInputStream;
+import com.example.text_drive.storage.StoredContent;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -20,31 +43,210 @@ public class FileService {
 
     private final FileRepository fileRepository;
     private final FolderRepository folderRepository;
+    private final ContentStore contentStore;
+    private final ContentBlobService contentBlobService;
+    private final ContentSearchIndex contentSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    // Maximum number of files returned by a fuzzy name search
+    private static final int FUZZY_SEARCH_LIMIT = 50;
+
+    // Maximum number of bytes at the start of a file that are indexed for full-text search
+    private static final int SEARCH_TEXT_LIMIT = 256 * 1024;
 
     /**
      * Uploads a file to a specific folder.
      * Validates the file type and folder ownership before saving the file.
+     * The content is streamed from the upload into the content store instead of being copied into a byte array first.
+     * It is written before the transaction that saves the file starts, so an upload uses one database connection
+     * at a time and none while its content is read; content that ends up unused is collected by the sweeper.
+     * The start of the content is kept while it is written, to be indexed for search without reading it back.
      */
     public File uploadFile(MultipartFile file, Long folderId, Authentication authentication) {
         validateTextFile(file);
         User user = (User) authentication.getPrincipal();
 
-        Folder folder = folderRepository.findByIdAndOwner(folderId, user)
-                .orElseThrow(() -> new ResponseStatusException(
-                        HttpStatus.NOT_FOUND,
-                        "Folder with ID " + folderId + " not found or access denied"
-                ));
+        StoredContent stored;
+        String searchText;
+        try (PrefixCapturingInputStream content = new PrefixCapturingInputStream(file.getInputStream(), SEARCH_TEXT_LIMIT)) {
+            stored = contentBlobService.write(content);
+            searchText = new String(content.getPrefix(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Error reading file content"
+            );
+        }
+
+        return transactionTemplate.execute(status -> {
+            Folder folder = folderRepository.findByIdAndOwner(folderId, user)
+                    .orElseThrow(() -> new ResponseStatusException(
+                            HttpStatus.NOT_FOUND,
+                            "Folder with ID " + folderId + " not found or access denied"
+                    ));
 
-        File fileEntity = new File(file.getOriginalFilename(), file.getOriginalFilename(), folder);
+            File fileEntity = new File(file.getOriginalFilename(), folder);
+            applyContent(fileEntity, stored);
+            File savedFile = fileRepository.save(fileEntity);
+            contentSearchIndex.update(savedFile, searchText);
+            return savedFile;
+        });
+    }
+
+    /**
+     * Replaces the content of an existing file with the raw request body.
+     * Only files belonging to the authenticated user's folders can be updated.
+     * As for uploads, the body is written to the content store before the transaction that updates the file starts.
+     */
+    public File replaceFileContent(Long fileId, InputStream content, Authentication authentication) {
+        StoredContent stored;
+        String searchText;
         try {
-            fileEntity.setContent(new String(file.getBytes()));  // Store the file content as a string
+            PrefixCapturingInputStream capturing = new PrefixCapturingInputStream(content, SEARCH_TEXT_LIMIT);
+            stored = contentBlobService.write(capturing);
+            searchText = new String(capturing.getPrefix(), StandardCharsets.UTF_8);
         } catch (IOException e) {
             throw new ResponseStatusException(
                     HttpStatus.INTERNAL_SERVER_ERROR,
                     "Error reading file content"
             );
         }
-        return fileRepository.save(fileEntity);
+        if (stored.getSize() == 0) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "The file is empty and cannot be uploaded"
+            );
+        }
+
+        return transactionTemplate.execute(status -> {
+            File file = getFileById(fileId, authentication);
+            String previousKey = file.getContentKey();
+            applyContent(file, stored);
+            File savedFile = fileRepository.save(file);  // Save the new content key, size, checksum and modification time
+            releaseContent(Collections.singletonList(previousKey));
+            contentSearchIndex.update(savedFile, searchText);
+            return savedFile;
+        });
+    }
+
+    /**
+     * Updates the full-text search documents of files indexed after they were written, e.g. by SearchIndexBackfill.
+     * The files are loaded with one query, their documents are updated in one transaction.
+     */
+    @Transactional
+    public void updateSearchDocuments(Collection<Long> fileIds) {
+        fileRepository.findAllById(fileIds).forEach(this::updateSearchDocument);
+    }
+
+    /**
+     * Updates the full-text search document of a file from its name and the start of its stored content.
+     * Only the first SEARCH_TEXT_LIMIT bytes are indexed, since a tsvector is limited to 1 MB.
+     */
+    private void updateSearchDocument(File file) {
+        String searchText = "";
+        if (file.getContentKey() != null) {
+            ContentCodec codec = ContentCodec.orNone(file.getCodec());
+            try (InputStream content = codec.decode(contentStore.read(file.getContentKey()))) {
+                searchText = new String(content.readNBytes(SEARCH_TEXT_LIMIT), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new ResponseStatusException(
+                        HttpStatus.INTERNAL_SERVER_ERROR,
+                        "Error reading file content"
+                );
+            }
+        }
+        contentSearchIndex.update(file, searchText);
+    }
+
+    /**
+     * Searches the content and names of the user's files, ranked by relevance.
+     * The query supports web search syntax: quoted phrases, "or" and "-" to exclude words.
+     */
+    public Page<FileSearchResult> searchFilesByContent(String query, Pageable pageable, Authentication authentication) {
+        validateSearchTerm(query);  // Validate that the search term is not empty
+        User user = (User) authentication.getPrincipal();
+        return contentSearchIndex.search(query, user, pageable);
+    }
+
+    /**
+     * Loads the content of a file as text.
+     * The content is only read when it is actually needed, e.g. for the single-file endpoint.
+     */
+    public String getFileContent(File file) {
+        if (file.getContentKey() == null) {
+            return "";
+        }
+        ContentCodec codec = ContentCodec.orNone(file.getCodec());
+        try (InputStream content = codec.decode(contentStore.read(file.getContentKey()))) {
+            return new String(content.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Error reading file content"
+            );
+        }
+    }
+
+    /**
+     * Returns the content of a file as a Resource, used to stream downloads.
+     * Compressed content is decoded while it is streamed.
+     */
+    public Resource getFileResource(File file) {
+        if (file.getContentKey() == null) {
+            return new ByteArrayResource(new byte[0]);
+        }
+        try {
+            Resource stored = contentStore.getResource(file.getContentKey());
+            ContentCodec codec = ContentCodec.orNone(file.getCodec());
+            return codec == ContentCodec.NONE ? stored : new DecodedContentResource(stored, codec, file.getSize());
+        } catch (IOException e) {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Error reading file content"
+            );
+        }
+    }
+
+    /**
+     * Returns the content of a file exactly as it is stored, i.e. still encoded with the codec of the file.
+     * Used to send compressed content to clients that accept the encoding, without decompressing it first.
+     */
+    public Resource getStoredFileResource(File file) {
+        if (file.getContentKey() == null) {
+            throw new ResponseStatusException(
+                    HttpStatus.NOT_FOUND,
+                    "File with ID " + file.getId() + " has no stored content"
+            );
+        }
+        try {
+            return contentStore.getResource(file.getContentKey());
+        } catch (IOException e) {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Error reading file content"
+            );
+        }
+    }
+
+    /**
+     * Releases the references of deleted files (or replaced content) to their stored content.
+     * Content that is no longer referenced by any file is collected by the ContentBlobService sweeper.
+     */
+    public void releaseContent(Collection<String> contentKeys) {
+        contentKeys.forEach(contentBlobService::release);  // One reference per file, so duplicates are released twice
+    }
+
+    /**
+     * Points the file at content written to the content store and updates its
+     * size, checksum and modification time.
+     */
+    private void applyContent(File file, StoredContent stored) {
+        contentBlobService.acquire(stored.getKey());
+        file.setContentKey(stored.getKey());
+        file.setCodec(stored.getCodec());
+        file.setSize(stored.getSize());
+        file.setChecksum(stored.getChecksum());
+        file.setModifiedAt(Instant.now());
     }
 
     /**
@@ -63,11 +265,19 @@ public class FileService {
     /**
      * Searches for files by name.
      * The search term is validated to ensure it is not empty.
+     * In fuzzy mode names are matched by trigram similarity, most similar first, so typos are tolerated.
      */
-    public List<File> searchFilesByName(String name, Authentication authentication) {
+    public List<FileSummary> searchFilesByName(String name, boolean fuzzy, Authentication authentication) {
         validateSearchTerm(name);  // Validate that the search term is not empty
         User user = (User) authentication.getPrincipal();
-        return fileRepository.findByNameContainingIgnoreCaseAndFolderOwner(name, user);
+        if (!fuzzy) {
+            return fileRepository.findSummariesByNameContainingIgnoreCaseAndFolderOwner(name, user);
+        }
+
+        List<Long> fileIds = fileRepository.findIdsByNameSimilarTo(name, user.getId(), FUZZY_SEARCH_LIMIT);
+        Map<Long, FileSummary> summaries = fileRepository.findSummariesByIdIn(fileIds).stream()
+                .collect(Collectors.toMap(FileSummary::getId, Function.identity()));
+        return fileIds.stream().map(summaries::get).filter(Objects::nonNull).toList();  // Keep the similarity order
     }
 
     /**
@@ -115,21 +325,28 @@ public class FileService {
      * Deletes a file by its ID.
      * Ensures the file belongs to the authenticated user's folder before deletion.
      */
+    @Transactional
     public void deleteFile(Long fileId, Authentication authentication) {
         File file = getFileById(fileId, authentication);  // Fetch the file by ID
         fileRepository.delete(file);  // Delete the file from the repository
+        releaseContent(Collections.singletonList(file.getContentKey()));  // Release the reference to the stored content
+        contentSearchIndex.remove(file.getFolder().getOwner(), List.of(fileId));
     }
 
     /**
      * Renames a file.
      * Validates the new file name before renaming the file.
      */
+    @Transactional
     public File renameFile(Long fileId, String newName, Authentication authentication) {
         validateFileName(newName);  // Validate that the new file name is not empty
 
         File file = getFileById(fileId, authentication);
         file.setName(newName);  // Set the new file name
-        return fileRepository.save(file);  // Save the renamed file
+        file.setModifiedAt(Instant.now());
+        File savedFile = fileRepository.save(file);  // Save the renamed file
+        contentSearchIndex.rename(savedFile);  // Keep the search document in sync
+        return savedFile;
     }
 
     /**
@@ -145,10 +362,10 @@ public class FileService {
     }
 
     /**
-     * Retrieves all files in a folder.
+     * Retrieves the metadata of all files in a folder.
      * Validates that the folder belongs to the authenticated user.
      */
-    public List<File> getFilesByFolderId(Long folderId, Authentication authentication) {
+    public List<FileSummary> getFilesByFolderId(Long folderId, Authentication authentication) {
         User user = (User) authentication.getPrincipal();
 
         // Validate that the folder belongs to the authenticated user
@@ -158,7 +375,7 @@ public class FileService {
                         "Folder with ID " + folderId + " not found or access denied"
                 ));
 
-        // Fetch files by folderId
-        return fileRepository.findByFolderId(folderId);
+        // Fetch file metadata by folderId
+        return fileRepository.findSummariesByFolderId(folderId);
     }
 }
\ No newline at end of file
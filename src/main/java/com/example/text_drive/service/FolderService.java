@@ -1,14 +1,27 @@
 package com.example.text_drive.service;
 
+import com.example.text_drive.model.File;
 import com.example.text_drive.model.Folder;
 import com.example.text_drive.model.User;
 import com.example.text_drive.repository.FolderRepository;
+import com.example.text_drive.search.ContentSearchIndex;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service class responsible for managing folders.
@@ -18,6 +31,16 @@ import java.util.List;
 public class FolderService {
 
     private final FolderRepository folderRepository;
+    private final FileService fileService;
+    private final ContentSearchIndex contentSearchIndex;
+    private final PlatformTransactionManager transactionManager;
+
+    // Maximum number of folders returned by a fuzzy name search
+    private static final int FUZZY_SEARCH_LIMIT = 50;
+
+    // Folders read per transaction when passing all of a user's folders, and the timeout of each of those transactions
+    private static final int STREAM_PAGE_SIZE = 100;
+    private static final int STREAM_PAGE_TIMEOUT_SECONDS = 10;
 
     /**
      * Creates a new folder with the specified name and assigns it to the authenticated user.
@@ -64,21 +87,76 @@ public class FolderService {
         return folderRepository.findByOwner(user);
     }
 
+    /**
+     * Retrieves one page of the folders owned by the authenticated user, ordered by id.
+     * Pages are found by the last id of the previous page (keyset pagination),
+     * so later pages cost the same as the first one.
+     *
+     * @param afterId The id of the last folder of the previous page, or null for the first page.
+     * @param limit The maximum number of folders to return.
+     * @param authentication The authentication object containing user details.
+     * @return A slice of folders, telling whether there are more.
+     */
+    public Slice<Folder> getUserFolders(Long afterId, int limit, Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return folderRepository.findByOwnerAndIdGreaterThanOrderByIdAsc(
+                user, afterId != null ? afterId : 0L, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Passes the folders owned by a user to the consumer a page at a time, ordered by id.
+     * Each page is read by keyset in its own short, read-only transaction, with the owner and files of its folders
+     * fetched in the same statement, and handed to the consumer after that transaction has ended.
+     * So no connection is held while the consumer writes to a slow client, and memory use does not grow with
+     * the number of folders. Unlike a single query, folders created or deleted meanwhile may or may not be passed.
+     *
+     * @param owner The owner of the folders.
+     * @param consumer Receives each page of folders, with their owner and files loaded.
+     */
+    public void forEachUserFolderPage(User owner, Consumer<List<Folder>> consumer) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.setTimeout(STREAM_PAGE_TIMEOUT_SECONDS);
+
+        long afterId = 0L;
+        while (true) {
+            long pageAfterId = afterId;
+            List<Folder> page = readOnlyTransaction.execute(status -> {
+                List<Long> ids = folderRepository.findIdsByOwnerAfter(owner, pageAfterId, PageRequest.of(0, STREAM_PAGE_SIZE));
+                return ids.isEmpty() ? List.<Folder>of() : folderRepository.findByIdIn(ids).stream()
+                        .sorted(Comparator.comparing(Folder::getId))
+                        .toList();
+            });
+            if (page == null || page.isEmpty()) {
+                return;
+            }
+            consumer.accept(page);
+            if (page.size() < STREAM_PAGE_SIZE) {
+                return;
+            }
+            afterId = page.getLast().getId();
+        }
+    }
+
     /**
      * Searches for folders by name, ensuring the search term is not empty.
+     * In fuzzy mode names are matched by trigram similarity, most similar first, so typos are tolerated.
      *
      * @param name The name of the folder(s) to search for.
+     * @param fuzzy Whether to match by similarity instead of by substring.
      * @param authentication The authentication object containing user details.
      * @return A list of folders matching the search term.
      * @throws ResponseStatusException if the search term is empty or no folders are found.
      */
-    public List<Folder> searchFoldersByName(String name, Authentication authentication) {
+    public List<Folder> searchFoldersByName(String name, boolean fuzzy, Authentication authentication) {
         if (name == null || name.trim().isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search name cannot be empty");
         }
 
         User user = (User) authentication.getPrincipal();
-        List<Folder> folders = folderRepository.findByNameContainingIgnoreCaseAndOwner(name, user);
+        List<Folder> folders = fuzzy
+                ? findFoldersBySimilarName(name, user)
+                : folderRepository.findByNameContainingIgnoreCaseAndOwner(name, user);
 
         if (folders.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,
@@ -88,15 +166,37 @@ public class FolderService {
         return folders;
     }
 
+    /**
+     * Finds the user's folders with a name similar to the given one, most similar first.
+     *
+     * @param name The name to compare with.
+     * @param user The owner of the folders.
+     * @return A list of folders in order of similarity.
+     */
+    private List<Folder> findFoldersBySimilarName(String name, User user) {
+        List<Long> folderIds = folderRepository.findIdsByNameSimilarTo(name, user.getId(), FUZZY_SEARCH_LIMIT);
+        Map<Long, Folder> folders = folderRepository.findByIdIn(folderIds).stream()
+                .collect(Collectors.toMap(Folder::getId, Function.identity()));
+        return folderIds.stream().map(folders::get).filter(Objects::nonNull).toList();  // Keep the similarity order
+    }
+
     /**
      * Deletes a folder by its ID after verifying it belongs to the authenticated user, only ADMIN.
+     * The content of the deleted files is released once no other file uses it.
+     * The deleted files are also removed from the search index.
      *
      * @param id The ID of the folder to delete.
      * @param authentication The authentication object containing user details.
      */
+    @Transactional
     public void deleteFolder(Long id, Authentication authentication) {
         Folder folder = getFolderById(id, authentication);
+        List<File> files = folder.getFiles() != null ? folder.getFiles() : List.of();
+        List<String> contentKeys = files.stream().map(File::getContentKey).toList();
+        List<Long> fileIds = files.stream().map(File::getId).toList();
         folderRepository.delete(folder);  // Delete the folder from the repository
+        fileService.releaseContent(contentKeys);
+        contentSearchIndex.remove(folder.getOwner(), fileIds);
     }
 
     /**
@@ -0,0 +1,141 @@
+package com.example.text_drive.service;
+
+import com.example.text_drive.model.RefreshToken;
+import com.example.text_drive.model.User;
+import com.example.text_drive.repository.RefreshTokenRepository;
+import com.example.text_drive.security.JWTService;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Service class for refresh tokens, which renew a session when its access token expires.
+ * A refresh costs a hash and an indexed lookup, instead of the password check of a login.
+ * Refresh tokens are random, stored hashed, and single-use: every refresh returns a new one.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    // Number of random bytes in a refresh token
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JWTService jwtService;
+    private final Duration lifetime;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * A renewed session: the user, a new access token and the refresh token replacing the one that was used.
+     */
+    public record Session(User user, String accessToken, String refreshToken) {
+    }
+
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            JWTService jwtService,
+            @Value("${text-drive.security.refresh-token.lifetime:P14D}") Duration lifetime
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtService = jwtService;
+        this.lifetime = lifetime;
+    }
+
+    /**
+     * Issues a refresh token for a user that just logged in, starting a new token family.
+     *
+     * @param user The authenticated user.
+     * @return The refresh token, only its hash is stored.
+     */
+    @Transactional
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID());
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     * A token that was already used revokes its whole family, since either the client or an attacker holds a stolen copy.
+     *
+     * @param token The refresh token from the client.
+     * @return The renewed session.
+     * @throws ResponseStatusException with 401 if the token is unknown, expired or already used.
+     */
+    @Transactional(dontRollbackOn = ResponseStatusException.class)
+    public Session refresh(String token) {
+        if (token == null || token.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+        }
+        RefreshToken stored = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token"));
+
+        Instant now = Instant.now();
+        if (stored.getExpiresAt().isBefore(now)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token has expired");
+        }
+        if (refreshTokenRepository.markUsed(stored.getId(), now) == 0) {
+            refreshTokenRepository.deleteByFamilyId(stored.getFamilyId());  // Kept, since the transaction is not rolled back
+            logger.warn("Refresh token of user {} was used twice, revoked its token family", stored.getUser().getId());
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token has already been used");
+        }
+
+        User user = stored.getUser();
+        return new Session(user, jwtService.generateToken(user), issue(user, stored.getFamilyId()));
+    }
+
+    /**
+     * Revokes all refresh tokens of a user, used on logout.
+     *
+     * @param user The user whose refresh tokens are revoked.
+     */
+    @Transactional
+    public void revokeAll(User user) {
+        refreshTokenRepository.deleteByUser(user);
+    }
+
+    /**
+     * Deletes expired refresh tokens, used ones are kept until then to detect reuse.
+     */
+    @Scheduled(fixedDelayString = "${text-drive.security.refresh-token.sweep-interval:PT1H}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            logger.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String issue(User user, UUID familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshToken(hash(token), user, familyId, Instant.now().plus(lifetime)));
+        return token;
+    }
+
+    /**
+     * Hashes a refresh token with SHA-256. The tokens are random, so no salt or slow hash is needed.
+     */
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
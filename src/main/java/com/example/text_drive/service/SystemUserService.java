@@ -1,37 +1,64 @@
 package com.example.text_drive.service;
 
+import com.example.text_drive.dto.UserDTO;
 import com.example.text_drive.model.User;
 import com.example.text_drive.model.Role;
 import com.example.text_drive.repository.UserRepository;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import com.example.text_drive.security.PasswordHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import java.util.Optional;
 
 @Service
 public class SystemUserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SystemUserService.class);
+
     private final UserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+
+    private static final String SYSTEM_USERNAME = "systemUser";
 
-    public SystemUserService(UserRepository userRepository) {
+    // Shown as the owner of folders without one, built once instead of per mapped folder. Safe to share, UserDTO is read-only.
+    private volatile UserDTO systemOwner = new UserDTO(null, SYSTEM_USERNAME);
+
+    public SystemUserService(UserRepository userRepository, PasswordHasher passwordHasher) {
         this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
     }
 
     /**
-     * Creates a system user with the provided password if it does not exist in the database.
+     * Creates a system user with the provided password if it does not exist in the database,
+     * and resolves the system owner representation with its id.
      *
      * @param fallbackPassword The password to set for the system user if it needs to be created.
      */
     public void createSystemUserIfNotExists(String fallbackPassword) {
         // Check if a user with the username "systemUser" already exists
-        Optional<User> existingUser = userRepository.findByUsername("systemUser");
+        Optional<User> existingUser = userRepository.findByUsername(SYSTEM_USERNAME);
 
+        User systemUser;
         if (existingUser.isEmpty()) {
-            User systemUser = new User();
-            systemUser.setUsername("systemUser");
-            systemUser.setPassword(new BCryptPasswordEncoder().encode(fallbackPassword));  // Encrypt the password
+            systemUser = new User();
+            systemUser.setUsername(SYSTEM_USERNAME);
+            systemUser.setPassword(passwordHasher.encode(fallbackPassword));  // Encrypt the password
             systemUser.setRole(Role.ROLE_ADMIN);  // For now the only Admin
-            userRepository.save(systemUser);
-            System.out.println("System user 'systemUser' created successfully, and has role: " + systemUser.getRole().toString());
+            systemUser = userRepository.save(systemUser);
+            logger.info("System user '{}' created successfully, and has role: {}", SYSTEM_USERNAME, systemUser.getRole());
+        } else {
+            systemUser = existingUser.get();
         }
+        systemOwner = new UserDTO(systemUser);
+    }
+
+    /**
+     * Returns the owner shown for folders without one, mostly for development purposes.
+     * The same instance is returned every time, so mapping ownerless folders costs nothing.
+     *
+     * @return The system user as a UserDTO, without its id until the system user is created at startup.
+     */
+    public UserDTO getSystemOwner() {
+        return systemOwner;
     }
 }
\ No newline at end of file
@@ -4,13 +4,16 @@ import com.example.text_drive.model.Role;
 import com.example.text_drive.model.User;
 import com.example.text_drive.repository.UserRepository;
 import com.example.text_drive.security.JWTService;
+import com.example.text_drive.security.PasswordHasher;
+import com.example.text_drive.security.TokenVersions;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -24,9 +27,13 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class UserService implements UserDetailsService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
     private final UserRepository userRepository;
     private final JWTService jwtService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final TokenVersions tokenVersions;
+    private final RefreshTokenService refreshTokenService;
 
     /**
      * Creates a new user with the specified username and password.
@@ -36,64 +43,101 @@ public class UserService implements UserDetailsService {
      * @param password The password for the new user.
      * @return The created user entity.
      * @throws IllegalArgumentException if the username or password does not meet the required criteria.
+     * @throws org.springframework.web.server.ResponseStatusException with 429 if too many passwords are being hashed.
      */
-    @Transactional
     public User createUser(String username, String password) {
         validateUserInput(username, password);
         checkUsernameAvailability(username);  // Ensure the username is not already taken
 
-        String encodedPassword = passwordEncoder.encode(password);
+        // Hashed outside of a transaction, so no database connection is held meanwhile
+        String encodedPassword = passwordHasher.encode(password);
         User user = new User(username, encodedPassword, Role.ROLE_USER);
-        return userRepository.save(user);
+        return saveUser(user);
     }
 
     /**
-     * Creates a new user with OpenID-connect information.
-     * It also creates a random password that is saved to the database
-     * The idea is to be able to reset it,
-     * if you want to log in with a password instead (though there is no functionality for that yet).
+     * Returns the user with the given OpenID-connect identity, creating it on the first login.
+     * Runs as a single upsert, so concurrent first logins of the same user cannot create duplicates.
+     * A new user has no password, since they log in through the provider, so nothing is hashed.
+     * A password can be set later if logging in with a password should be possible (no functionality for that yet).
      *
      * @param username The username (GitHub username).
      * @param email The email address (if available).
      * @param oidcId The OpenID-connect user ID.
      * @param oidcProvider The OpenID-connect provider (Github).
-     * @return The created user entity.
+     * @return The existing or created user entity.
      */
     @Transactional
-    public User createOpenIdUser(String username, String email, String oidcId, String oidcProvider) {
+    public User findOrCreateOpenIdUser(String username, String email, String oidcId, String oidcProvider) {
         // Use the email address as the username if available, otherwise use the GitHub username.
         String finalUsername = (email != null && !email.isBlank()) ? email : username;
 
         // Set default provider to "github" if none is provided.
         String finalOidcProvider = (oidcProvider != null && !oidcProvider.isBlank()) ? oidcProvider : "github";
 
-        // Create a new user with a random password.
-        User user = new User();
-        user.setUsername(finalUsername);
-        user.setPassword(passwordEncoder.encode(UUID.randomUUID().toString())); // Random password
-        user.setRole(Role.ROLE_USER);
-        user.setOidcId(oidcId);
-        user.setOidcProvider(finalOidcProvider); // Use the default or provided provider
-        return userRepository.save(user);
+        // Insert a new user without a password, or return the existing one
+        UUID newId = UUID.randomUUID();
+        User user = userRepository.upsertOpenIdUser(newId, finalUsername, oidcId, finalOidcProvider);
+        if (user.getId().equals(newId)) {
+            logger.info("Registered user {} through OpenID-connect provider {}", user.getId(), finalOidcProvider);
+        }
+        tokenVersions.setVersion(user.getId(), user.getTokenVersion());
+        return user;
+    }
+
+    /**
+     * Saves a new or changed user and records its token version, so revoked tokens are rejected right away.
+     * All user changes go through here. Changes to what the tokens claim (such as the role)
+     * must also increase the token version, since tokens carry the claims and the user is not loaded per request.
+     *
+     * @param user The user to save.
+     * @return The saved user entity.
+     */
+    private User saveUser(User user) {
+        User savedUser = userRepository.save(user);
+        tokenVersions.setVersion(savedUser.getId(), savedUser.getTokenVersion());
+        return savedUser;
+    }
+
+    /**
+     * Revokes all tokens of a user by increasing the token version, and deletes their refresh tokens. Used on logout.
+     *
+     * @param userId The ID of the user.
+     * @throws UsernameNotFoundException if the user does not exist.
+     */
+    @Transactional
+    public void revokeTokens(UUID userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        saveUser(user);
+        refreshTokenService.revokeAll(user);
     }
 
     /**
      * Authenticates the user with the given username and password.
      * If the credentials are valid, generates and returns a JWT token for the user.
+     * A password hash made with an older encoder or a lower cost is replaced by a hash with the current settings.
      *
      * @param username The username for authentication.
      * @param password The password for authentication.
      * @return A JWT token for the authenticated user.
      * @throws BadCredentialsException if the username or password is incorrect.
+     * @throws org.springframework.web.server.ResponseStatusException with 429 if too many passwords are being hashed.
      */
     public String login(String username, String password) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new BadCredentialsException("Invalid credentials"));
-        if (!passwordEncoder.matches(password, user.getPassword())) {
-            throw new BadCredentialsException("Invalid credentials");
+        if (user.getPassword() == null || !passwordHasher.matches(password, user.getPassword())) {
+            throw new BadCredentialsException("Invalid credentials");  // Users without a password log in through OpenID-connect
+        }
+
+        if (passwordHasher.upgradeEncoding(user.getPassword())) {
+            user.setPassword(passwordHasher.encode(password));
+            user = saveUser(user);
         }
 
-        return jwtService.generateToken(user.getId());
+        return jwtService.generateToken(user);
     }
 
     /**
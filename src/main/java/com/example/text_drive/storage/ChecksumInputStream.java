@@ -0,0 +1,62 @@
+package com.example.text_drive.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Input stream that counts the bytes read and computes their SHA-256 checksum on the way.
+ */
+public class ChecksumInputStream extends FilterInputStream {
+
+    private final MessageDigest digest;
+    private long size;
+
+    public ChecksumInputStream(InputStream in) {
+        super(in);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            digest.update((byte) b);
+            size++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            digest.update(b, off, read);
+            size += read;
+        }
+        return read;
+    }
+
+    /**
+     * @return The number of bytes read so far.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Completes the checksum, should only be called once the stream has been read to the end.
+     *
+     * @return The SHA-256 of the bytes read, hex encoded.
+     */
+    public String getChecksum() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
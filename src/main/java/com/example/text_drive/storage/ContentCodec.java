@@ -0,0 +1,75 @@
+package com.example.text_drive.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Codecs used to encode file content in the ContentStore.
+ * The codec is recorded for each stored blob (and file), so content is decoded the same way it was encoded.
+ */
+public enum ContentCodec {
+
+    // Content is stored exactly as uploaded
+    NONE {
+        @Override
+        public OutputStream encode(OutputStream out) {
+            return out;
+        }
+
+        @Override
+        public InputStream decode(InputStream in) {
+            return in;
+        }
+    },
+
+    // Content is gzip compressed, using the fastest compression level since text compresses well anyway
+    GZIP {
+        @Override
+        public OutputStream encode(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+        }
+
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Wraps a stream so that content written to it is encoded, closing it finishes the encoding.
+     *
+     * @param out The stream receiving the encoded content.
+     * @return A stream to write the content to.
+     * @throws IOException If the stream cannot be created.
+     */
+    public abstract OutputStream encode(OutputStream out) throws IOException;
+
+    /**
+     * Wraps a stream of encoded content so that reading from it returns the original content.
+     *
+     * @param in The stream with encoded content.
+     * @return A stream returning the original content.
+     * @throws IOException If the stream cannot be created.
+     */
+    public abstract InputStream decode(InputStream in) throws IOException;
+
+    /**
+     * Returns the codec, treating a missing codec (content stored before codecs existed) as NONE.
+     *
+     * @param codec The recorded codec, may be null.
+     * @return The codec to use.
+     */
+    public static ContentCodec orNone(ContentCodec codec) {
+        return codec != null ? codec : NONE;
+    }
+}
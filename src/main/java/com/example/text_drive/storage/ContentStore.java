@@ -0,0 +1,79 @@
+package com.example.text_drive.storage;
+
+import org.springframework.core.io.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Storage backend for file content.
+ * Content is addressed by the SHA-256 checksum of its bytes, so identical content is only stored once.
+ * Which implementation is used is selected with the property "text-drive.storage.type".
+ */
+public interface ContentStore {
+
+    /**
+     * Reads the content of the stream and encodes it with the given codec, without storing it yet.
+     * The key is the checksum of the original content.
+     *
+     * @param content The content to stage, read until the end of the stream.
+     * @param codec The codec to encode the content with.
+     * @return The staged content, which must be closed once it has been stored or is no longer needed.
+     * @throws IOException If the content cannot be read or staged.
+     */
+    StagedContent stage(InputStream content, ContentCodec codec) throws IOException;
+
+    /**
+     * Checks whether content is stored under the given key.
+     *
+     * @param key The key returned when the content was written.
+     * @return True if the content exists.
+     * @throws IOException If the store cannot be checked.
+     */
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Writes the content of the stream to the store, encoded with the given codec.
+     * The key is the checksum of the original content; content that is already stored is not written again.
+     *
+     * @param content The content to store, read until the end of the stream.
+     * @param codec The codec to encode the content with.
+     * @return The key, size and checksum of the original content.
+     * @throws IOException If the content cannot be read or written.
+     */
+    default StoredContent write(InputStream content, ContentCodec codec) throws IOException {
+        try (StagedContent staged = stage(content, codec)) {
+            if (!exists(staged.getStoredContent().getKey())) {
+                staged.store();
+            }
+            return staged.getStoredContent();
+        }
+    }
+
+    /**
+     * Opens the stored (encoded) content for reading.
+     *
+     * @param key The key returned when the content was written.
+     * @return A stream over the stored content.
+     * @throws IOException If the content does not exist or cannot be read.
+     */
+    InputStream read(String key) throws IOException;
+
+    /**
+     * Returns the stored (encoded) content as a Resource, used to stream downloads.
+     *
+     * @param key The key returned when the content was written.
+     * @return A Resource with a known content length.
+     * @throws IOException If the content does not exist or cannot be read.
+     */
+    Resource getResource(String key) throws IOException;
+
+    /**
+     * Deletes the stored content, does nothing if it does not exist.
+     * Deleting from the filesystem cannot be rolled back with a transaction, so content is only deleted
+     * by the ContentBlobService sweeper, once no file references it, and never while a request is handled.
+     *
+     * @param key The key returned when the content was written.
+     * @throws IOException If the content cannot be deleted.
+     */
+    void delete(String key) throws IOException;
+}
@@ -0,0 +1,48 @@
+package com.example.text_drive.storage;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Resource that decodes stored content while it is read.
+ * The content length is the size of the original content, so Spring can answer range requests on it.
+ */
+public class DecodedContentResource extends AbstractResource {
+
+    private final Resource stored;
+    private final ContentCodec codec;
+    private final long size;
+
+    /**
+     * @param stored The resource with the encoded content.
+     * @param codec The codec the content was encoded with.
+     * @param size The size of the original content in bytes.
+     */
+    public DecodedContentResource(Resource stored, ContentCodec codec, long size) {
+        this.stored = stored;
+        this.codec = codec;
+        this.size = size;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return codec.decode(stored.getInputStream());
+    }
+
+    @Override
+    public boolean exists() {
+        return stored.exists();
+    }
+
+    @Override
+    public long contentLength() {
+        return size;
+    }
+
+    @Override
+    public String getDescription() {
+        return codec + " decoded " + stored.getDescription();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.text_drive.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Content store keeping file content as blobs on the local disk, outside of the database and the heap.
+ * Blobs are named after the SHA-256 checksum of their content and spread over sub-directories
+ * by the first two characters of the checksum.
+ */
+@Component
+@ConditionalOnProperty(name = "text-drive.storage.type", havingValue = "filesystem")
+public class FilesystemContentStore implements ContentStore {
+
+    private final Path root;
+
+    public FilesystemContentStore(@Value("${text-drive.storage.path:data/blobs}") String path) throws IOException {
+        this.root = Paths.get(path).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+    }
+
+    /**
+     * Streams the encoded content into a temporary file while computing the checksum of the original.
+     * Only a fixed-size buffer is held in memory; storing moves the file into place under the checksum.
+     */
+    @Override
+    public StagedContent stage(InputStream content, ContentCodec codec) throws IOException {
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            ChecksumInputStream checksumStream = new ChecksumInputStream(content);
+            try (OutputStream out = codec.encode(Files.newOutputStream(temp, StandardOpenOption.WRITE))) {
+                checksumStream.transferTo(out);
+            }
+            String key = checksumStream.getChecksum();
+            return new StagedFile(temp, pathFor(key), new StoredContent(key, checksumStream.getSize(), key, codec));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(pathFor(key));
+    }
+
+    @Override
+    public InputStream read(String key) throws IOException {
+        return Channels.newInputStream(FileChannel.open(existingPathFor(key), StandardOpenOption.READ));
+    }
+
+    /**
+     * Returns the blob as a FileSystemResource, which reads it through a FileChannel.
+     */
+    @Override
+    public Resource getResource(String key) throws IOException {
+        return new FileSystemResource(existingPathFor(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(pathFor(key));
+    }
+
+    /**
+     * Content staged in a temporary file, moved atomically into place when it is stored.
+     */
+    private record StagedFile(Path temp, Path target, StoredContent storedContent) implements StagedContent {
+
+        @Override
+        public StoredContent getStoredContent() {
+            return storedContent;
+        }
+
+        @Override
+        public void store() throws IOException {
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        @Override
+        public void close() throws IOException {
+            Files.deleteIfExists(temp);  // Already gone if the content was stored
+        }
+    }
+
+    /**
+     * Resolves the path of a blob and checks that it exists.
+     */
+    private Path existingPathFor(String key) throws IOException {
+        Path path = pathFor(key);
+        if (Files.notExists(path)) {
+            throw new FileNotFoundException("No content stored with key " + key);
+        }
+        return path;
+    }
+
+    /**
+     * Resolves the path of a blob, keys are validated so they cannot point outside the store.
+     */
+    private Path pathFor(String key) {
+        if (key == null || !key.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Invalid content key: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+}
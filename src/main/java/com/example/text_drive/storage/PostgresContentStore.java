@@ -0,0 +1,90 @@
+package com.example.text_drive.storage;
+
+import com.example.text_drive.model.ContentData;
+import com.example.text_drive.repository.ContentDataRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Content store keeping file content in the content_data table.
+ * This is the default store; content is held in memory as a whole, both when it is written and when it is read,
+ * since the PostgreSQL driver does not stream bytea values. Each upload and download therefore needs heap
+ * in proportion to the size of the file, the filesystem store (text-drive.storage.type=filesystem) does not.
+ */
+@Component
+@ConditionalOnProperty(name = "text-drive.storage.type", havingValue = "postgres", matchIfMissing = true)
+@RequiredArgsConstructor
+public class PostgresContentStore implements ContentStore {
+
+    private final ContentDataRepository contentDataRepository;
+
+    /**
+     * Encodes the content into memory while computing the checksum of the original.
+     */
+    @Override
+    public StagedContent stage(InputStream content, ContentCodec codec) throws IOException {
+        ChecksumInputStream checksumStream = new ChecksumInputStream(content);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream out = codec.encode(buffer)) {
+            checksumStream.transferTo(out);
+        }
+        byte[] data = buffer.toByteArray();
+        String key = checksumStream.getChecksum();
+        StoredContent stored = new StoredContent(key, checksumStream.getSize(), key, codec);
+
+        return new StagedContent() {
+            @Override
+            public StoredContent getStoredContent() {
+                return stored;
+            }
+
+            @Override
+            public void store() {
+                contentDataRepository.upsert(key, data);
+            }
+
+            @Override
+            public void close() {
+                // Nothing to clean up, the staged bytes are only held in memory
+            }
+        };
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return contentDataRepository.existsById(key);
+    }
+
+    @Override
+    public InputStream read(String key) throws IOException {
+        return new ByteArrayInputStream(load(key));
+    }
+
+    @Override
+    public Resource getResource(String key) throws IOException {
+        return new ByteArrayResource(load(key));
+    }
+
+    @Override
+    public void delete(String key) {
+        contentDataRepository.deleteById(key);
+    }
+
+    /**
+     * Loads the stored bytes for a key.
+     */
+    private byte[] load(String key) throws IOException {
+        return contentDataRepository.findById(key)
+                .map(ContentData::getData)
+                .orElseThrow(() -> new FileNotFoundException("No content stored with key " + key));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.text_drive.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that keeps a copy of the first bytes read, up to a limit.
+ * Lets the start of an upload be indexed while it is streamed into the content store, instead of reading it back.
+ */
+public class PrefixCapturingInputStream extends FilterInputStream {
+
+    // Initial capacity of the copy, so a small upload does not get a buffer for the whole limit
+    private static final int INITIAL_CAPACITY = 8192;
+
+    private final int limit;
+    private final ByteArrayOutputStream prefix;
+
+    public PrefixCapturingInputStream(InputStream in, int limit) {
+        super(in);
+        this.limit = limit;
+        this.prefix = new ByteArrayOutputStream(Math.min(limit, INITIAL_CAPACITY));
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1 && prefix.size() < limit) {
+            prefix.write(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0 && prefix.size() < limit) {
+            prefix.write(b, off, Math.min(read, limit - prefix.size()));
+        }
+        return read;
+    }
+
+    /**
+     * @return A copy of the first bytes read, at most the limit.
+     */
+    public byte[] getPrefix() {
+        return prefix.toByteArray();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.text_drive.storage;
+
+import java.io.IOException;
+
+/**
+ * Content that has been read and encoded by a {@link ContentStore}, but not yet stored under its key.
+ * Staging does the slow part of a write (reading the upload) without a database connection; storing
+ * is done afterwards, inside the transaction that registers the content.
+ */
+public interface StagedContent extends AutoCloseable {
+
+    /**
+     * Returns the key, size, checksum and codec the content will be stored with.
+     */
+    StoredContent getStoredContent();
+
+    /**
+     * Stores the staged content under its key, replacing whatever is stored there.
+     *
+     * @throws IOException If the content cannot be written.
+     */
+    void store() throws IOException;
+
+    /**
+     * Discards the staged content, stored content is not affected.
+     *
+     * @throws IOException If the staged content cannot be removed.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,16 @@
+package com.example.text_drive.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Describes content written to a {@link ContentStore}.
+ */
+@Getter
+@AllArgsConstructor
+public class StoredContent {
+    private final String key;  // The key to read the content back with
+    private final long size;  // Size of the content in bytes
+    private final String checksum;  // SHA-256 of the content, hex encoded
+    private final ContentCodec codec;  // The codec the content is stored with
+}
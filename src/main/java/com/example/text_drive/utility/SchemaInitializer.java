@@ -0,0 +1,235 @@
+package com.example.text_drive.utility;
+
+import com.example.text_drive.search.ContentSearchIndex;
+import com.example.text_drive.search.PostgresContentSearchIndex;
+import com.example.text_drive.storage.ContentCodec;
+import com.example.text_drive.storage.ContentStore;
+import com.example.text_drive.storage.StoredContent;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A utility class that applies schema changes Hibernate cannot express on its own.
+ * It runs once at startup, after Hibernate has created or updated the tables,
+ * and every statement is safe to run again on an already migrated database.
+ * Statements run in their own transactions, so an optional step that fails does not undo the others.
+ * Steps that write through JPA repositories, which need a transaction, wrap each unit of work in the TransactionTemplate.
+ */
+@Component
+@RequiredArgsConstructor
+public class SchemaInitializer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaInitializer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentStore contentStore;
+    private final ContentSearchIndex contentSearchIndex;
+    private final SearchIndexBackfill searchIndexBackfill;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Applies all schema changes in order.
+     *
+     * @param args The application arguments (not used).
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        migrateLegacyContent();
+        registerContentBlobs();
+        createContentSearchIndex();
+        createNameSearchIndexes();
+        createOpenIdIndexes();
+        createFolderOwnerIndex();
+        searchIndexBackfill.start();  // Indexes files the search index is missing in the background
+    }
+
+    /**
+     * Moves content stored by earlier versions (the file.content column and the file_content table)
+     * into the configured content store, then drops the old column and table.
+     */
+    private void migrateLegacyContent() {
+        if (columnExists("file", "content")) {
+            int migrated = migrateContent(
+                    "SELECT id FROM file WHERE content IS NOT NULL",
+                    "SELECT content FROM file WHERE id = ?"
+            );
+            jdbcTemplate.execute("ALTER TABLE file DROP COLUMN content");
+            logger.info("Moved content of {} files from the file table into the content store", migrated);
+        }
+
+        if (tableExists("file_content")) {
+            int migrated = migrateContent(
+                    "SELECT file_id FROM file_content",
+                    "SELECT content FROM file_content WHERE file_id = ?"
+            );
+            jdbcTemplate.execute("DROP TABLE file_content");
+            logger.info("Moved content of {} files from the file_content table into the content store", migrated);
+        }
+    }
+
+    /**
+     * Creates reference-counted blob rows for stored content that files point at,
+     * but that was stored before blobs were tracked.
+     */
+    private void registerContentBlobs() {
+        int registered = jdbcTemplate.update(
+                "INSERT INTO content_blob (content_key, size, codec, ref_count, released_at) " +
+                "SELECT content_key, max(size), max(codec), count(*), NULL FROM file " +
+                "WHERE content_key IS NOT NULL GROUP BY content_key " +
+                "ON CONFLICT (content_key) DO NOTHING"
+        );
+        if (registered > 0) {
+            logger.info("Registered {} content blobs with their reference counts", registered);
+        }
+    }
+
+    /**
+     * Adds the full-text search vector to the file table with a GIN index, and the table holding the text
+     * snippets are made from, one row per content blob that is deleted with the blob.
+     * Text stored per file by earlier versions (the file.search_text column) is moved there, once per blob.
+     * Only done when the PostgreSQL search engine is selected; with another engine the search columns are dropped,
+     * since they are no longer kept up to date, and are rebuilt for every file when the engine is selected again.
+     * The column is not mapped in File, so it is never loaded with it.
+     */
+    private void createContentSearchIndex() {
+        if (!(contentSearchIndex instanceof PostgresContentSearchIndex)) {
+            jdbcTemplate.execute("ALTER TABLE file DROP COLUMN IF EXISTS search_vector");
+            jdbcTemplate.execute("ALTER TABLE file DROP COLUMN IF EXISTS search_text");
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE file ADD COLUMN IF NOT EXISTS search_vector tsvector");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS file_search_vector_idx ON file USING gin (search_vector)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS content_search_text (" +
+                "content_key varchar(64) PRIMARY KEY REFERENCES content_blob (content_key) ON DELETE CASCADE, " +
+                "search_text text NOT NULL)");
+        if (columnExists("file", "search_text")) {
+            jdbcTemplate.update(
+                    "INSERT INTO content_search_text (content_key, search_text) " +
+                    "SELECT DISTINCT ON (f.content_key) f.content_key, f.search_text FROM file f " +
+                    "JOIN content_blob b ON b.content_key = f.content_key " +
+                    "WHERE f.search_text IS NOT NULL AND f.search_text <> '' " +
+                    "ORDER BY f.content_key ON CONFLICT (content_key) DO NOTHING"
+            );
+            jdbcTemplate.execute("ALTER TABLE file DROP COLUMN search_text");
+        }
+    }
+
+    /**
+     * Creates pg_trgm GIN indexes on the upper-cased file and folder names.
+     * They serve both the case-insensitive substring searches (upper(name) LIKE upper('%term%'))
+     * and the fuzzy searches (% operator), which would otherwise scan the whole table.
+     * Creating the extension needs suitable privileges, without it the searches still work, just unindexed.
+     */
+    private void createNameSearchIndexes() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        } catch (DataAccessException e) {
+            logger.warn("Could not create the pg_trgm extension, name searches will not be indexed", e);
+            return;
+        }
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS file_name_trgm_idx ON file USING gin (upper(name) gin_trgm_ops)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS folder_name_trgm_idx ON folder USING gin (upper(name) gin_trgm_ops)");
+    }
+
+    /**
+     * Creates the unique index on the OpenID-connect identity that the user upsert conflicts on,
+     * and an index on oidc_id alone for lookups by id.
+     * The unique constraint is declared on User as well, this covers databases whose schema Hibernate does not manage.
+     * Fails if earlier versions created duplicate users for the same identity, those must be merged first.
+     */
+    private void createOpenIdIndexes() {
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS application_user_oidc_key " +
+                "ON application_user (oidc_provider, oidc_id)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS application_user_oidc_id_idx ON application_user (oidc_id)");
+    }
+
+    /**
+     * Creates an index on the owner and id of folders, serving the per-user folder listings
+     * and their keyset pagination (owner_id = ? AND id > ? ORDER BY id).
+     */
+    private void createFolderOwnerIndex() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS folder_owner_id_idx ON folder (owner_id, id)");
+    }
+
+    /**
+     * Writes the content of each file to the content store, one file at a time to keep memory use low,
+     * and points the file at the stored content.
+     *
+     * @param selectIds Query returning the ids of the files to migrate.
+     * @param selectContent Query returning the content of one file, given its id.
+     * @return The number of migrated files.
+     */
+    private int migrateContent(String selectIds, String selectContent) {
+        List<Long> fileIds = jdbcTemplate.queryForList(selectIds, Long.class);
+        for (Long fileId : fileIds) {
+            // Storing the content and pointing the file at it commit together, one file per transaction
+            transactionTemplate.executeWithoutResult(status -> migrateContent(fileId, selectContent));
+        }
+        return fileIds.size();
+    }
+
+    /**
+     * Writes the content of one file to the content store and points the file at it.
+     *
+     * @param fileId The id of the file.
+     * @param selectContent Query returning the content of the file, given its id.
+     */
+    private void migrateContent(Long fileId, String selectContent) {
+        String content = jdbcTemplate.queryForObject(selectContent, String.class, fileId);
+        try {
+            StoredContent stored = contentStore.write(
+                    new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)),
+                    ContentCodec.NONE
+            );
+            jdbcTemplate.update(
+                    "UPDATE file SET content_key = ?, size = ?, checksum = ? WHERE id = ?",
+                    stored.getKey(), stored.getSize(), stored.getChecksum(), fileId
+            );
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to migrate content of file " + fileId, e);
+        }
+    }
+
+    /**
+     * Checks if a column exists in a table of the current schema.
+     *
+     * @param table The name of the table.
+     * @param column The name of the column.
+     * @return True if the column exists, otherwise false.
+     */
+    private boolean columnExists(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM information_schema.columns " +
+                "WHERE table_schema = current_schema() AND table_name = ? AND column_name = ?",
+                Integer.class, table, column
+        );
+        return count != null && count > 0;
+    }
+
+    /**
+     * Checks if a table exists in the current schema.
+     *
+     * @param table The name of the table.
+     * @return True if the table exists, otherwise false.
+     */
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM information_schema.tables " +
+                "WHERE table_schema = current_schema() AND table_name = ?",
+                Integer.class, table
+        );
+        return count != null && count > 0;
+    }
+}
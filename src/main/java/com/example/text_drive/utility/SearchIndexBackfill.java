@@ -0,0 +1,72 @@
+package com.example.text_drive.utility;
+
+import com.example.text_drive.search.ContentSearchIndex;
+import com.example.text_drive.service.FileService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Builds the search documents of files the configured search index is missing or has outdated,
+ * e.g. after an upgrade or after switching the search engine.
+ * Runs in the background on the task scheduler, one batch of files per task, so it does not hold up startup
+ * and the other scheduled tasks (such as the content sweeper) run in between the batches.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchIndexBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexBackfill.class);
+
+    // Number of files loaded and indexed per transaction
+    private static final int BATCH_SIZE = 100;
+
+    private final ContentSearchIndex contentSearchIndex;
+    private final FileService fileService;
+    private final TaskScheduler taskScheduler;
+
+    /**
+     * Starts the backfill in the background. Called by SchemaInitializer once the search schema exists.
+     */
+    public void start() {
+        taskScheduler.schedule(this::findStaleFiles, Instant.now());
+    }
+
+    /**
+     * Finds the files to index and schedules the first batch.
+     */
+    private void findStaleFiles() {
+        List<Long> fileIds = contentSearchIndex.findStaleFileIds();
+        if (!fileIds.isEmpty()) {
+            logger.info("Building full-text search documents for {} files in the background", fileIds.size());
+            indexBatch(fileIds, 0);
+        }
+    }
+
+    /**
+     * Indexes one batch of files in one transaction, then schedules the next batch.
+     * A batch that fails is logged and skipped, its files are found again at the next startup.
+     *
+     * @param fileIds The ids of all files to index.
+     * @param from The index in fileIds of the first file of the batch.
+     */
+    private void indexBatch(List<Long> fileIds, int from) {
+        List<Long> batch = fileIds.subList(from, Math.min(from + BATCH_SIZE, fileIds.size()));
+        try {
+            fileService.updateSearchDocuments(batch);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to build the search documents of files {}", batch, e);
+        }
+
+        int next = from + batch.size();
+        if (next < fileIds.size()) {
+            taskScheduler.schedule(() -> indexBatch(fileIds, next), Instant.now());
+        } else {
+            logger.info("Built full-text search documents for {} files", fileIds.size());
+        }
+    }
+}
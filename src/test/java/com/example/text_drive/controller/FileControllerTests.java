@@ -0,0 +1,43 @@
+package com.example.text_drive.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the reading of the Accept-Encoding header for gzip downloads.
+ */
+class FileControllerTests {
+
+    @Test
+    void acceptsListedGzip() {
+        assertTrue(FileController.acceptsGzip("gzip"));
+        assertTrue(FileController.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(FileController.acceptsGzip("x-gzip"));
+        assertTrue(FileController.acceptsGzip("*"));
+    }
+
+    @Test
+    void rejectsMissingOrUnlistedGzip() {
+        assertFalse(FileController.acceptsGzip(null));
+        assertFalse(FileController.acceptsGzip(""));
+        assertFalse(FileController.acceptsGzip("deflate, br"));
+    }
+
+    @Test
+    void respectsZeroQuality() {
+        assertFalse(FileController.acceptsGzip("gzip;q=0"));
+        assertFalse(FileController.acceptsGzip("gzip; q=0.000"));
+        assertFalse(FileController.acceptsGzip("gzip;q=0, *"));
+        assertFalse(FileController.acceptsGzip("*;q=0"));
+        assertFalse(FileController.acceptsGzip("gzip;q=invalid"));
+    }
+
+    @Test
+    void readsEveryEntry() {
+        assertTrue(FileController.acceptsGzip("*;q=0, gzip"));
+        assertTrue(FileController.acceptsGzip("br;q=0, *;q=0.1"));
+        assertTrue(FileController.acceptsGzip("gzip;q=0, x-gzip;q=1"));
+    }
+}
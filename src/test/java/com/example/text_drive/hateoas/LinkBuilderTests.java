@@ -0,0 +1,133 @@
+package com.example.text_drive.hateoas;
+
+import com.example.text_drive.controller.FileController;
+import com.example.text_drive.controller.FolderController;
+import com.example.text_drive.controller.UserController;
+import com.example.text_drive.dto.LoginRequestDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Checks that the expanded link templates give the same links as building them with linkTo on each call,
+ * with values and with the arguments left open.
+ */
+class LinkBuilderTests {
+
+    private final LinkBuilder linkBuilder = new LinkBuilder();
+
+    @BeforeEach
+    void setUpRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void userLinksMatchLinkTo() {
+        UUID userId = UUID.randomUUID();
+
+        assertSameLink(linkTo(methodOn(UserController.class).getUser(userId, null)),
+                IanaLinkRelations.SELF, "HTTP Method: GET", linkBuilder.getUserSelfLink(userId));
+        assertSameLink(linkTo(methodOn(UserController.class).getUser(null, null)),
+                IanaLinkRelations.SELF, "HTTP Method: GET", linkBuilder.getUserSelfLink(null));
+        assertSameLink(linkTo(methodOn(UserController.class).getUser(userId, null)),
+                LinkRelation.of("user-details"), "HTTP Method: GET", linkBuilder.getUserDetailsLink(userId));
+        assertSameLink(linkTo(methodOn(UserController.class).createUser(null)),
+                LinkRelation.of("register"), "HTTP Method: POST", linkBuilder.getRegisterLink());
+        assertSameLink(linkTo(methodOn(UserController.class).login(new LoginRequestDTO("username", "password"), null, null)),
+                LinkRelation.of("login"), "HTTP Method: POST", linkBuilder.getLoginLink());
+        assertSameLink(linkTo(methodOn(UserController.class).refresh(null, null)),
+                LinkRelation.of("refresh"), "HTTP Method: POST", linkBuilder.getRefreshLink());
+        assertSameLink(linkTo(methodOn(UserController.class).logout(null)),
+                LinkRelation.of("logout"), "HTTP Method: POST", linkBuilder.getLogoutLink());
+    }
+
+    @Test
+    void folderLinksMatchLinkTo() {
+        Long folderId = 42L;
+
+        assertSameLink(linkTo(methodOn(FolderController.class).getFolder(folderId, null)),
+                IanaLinkRelations.SELF, "HTTP Method: GET", linkBuilder.getFolderSelfLink(folderId, null));
+        assertSameLink(linkTo(methodOn(FolderController.class).getFolder(null, null)),
+                IanaLinkRelations.SELF, "HTTP Method: GET", linkBuilder.getFolderSelfLink(null, null));
+        assertSameLink(linkTo(methodOn(FolderController.class).getFolder(folderId, null)),
+                LinkRelation.of("get-folder"), "HTTP Method: GET", linkBuilder.getFolderLink(folderId, null));
+        assertSameLink(linkTo(methodOn(FolderController.class).createFolder(null, null)),
+                LinkRelation.of("create-folder"), "HTTP Method: POST", linkBuilder.getCreateFolderLink());
+        assertSameLink(linkTo(methodOn(FolderController.class).deleteFolder(folderId, null)),
+                LinkRelation.of("delete-folder"), "HTTP Method: DELETE (Requires ROLE_ADMIN)",
+                linkBuilder.getDeleteFolderLink(folderId, null));
+        assertSameLink(linkTo(methodOn(FolderController.class).updateFolder(folderId, null, null)),
+                LinkRelation.of("update-folder"), "HTTP Method: PUT", linkBuilder.getUpdateFolderLink(folderId, null));
+        assertSameLink(linkTo(methodOn(FileController.class).getFilesByFolderId(folderId, null)),
+                LinkRelation.of("files-in-folder"), "HTTP Method: GET", linkBuilder.getFilesByFolderIdLink(folderId, null));
+    }
+
+    @Test
+    void folderQueryLinksKeepOpenVariables() {
+        assertSameLink(linkTo(methodOn(FolderController.class).getUserFolders(null, null, null, null, null)),
+                LinkRelation.of("get-user-folders"), "HTTP Method: GET", linkBuilder.getUserFoldersLink(null));
+        assertSameLink(linkTo(methodOn(FolderController.class).getUserFolders(5L, 20, null, null, null)),
+                LinkRelation.of("get-user-folders"), "HTTP Method: GET", linkBuilder.getUserFoldersPageLink(5L, 20, null));
+        assertSameLink(linkTo(methodOn(FolderController.class).getUserFolders(null, 20, null, null, null)),
+                LinkRelation.of("get-user-folders"), "HTTP Method: GET", linkBuilder.getUserFoldersPageLink(null, 20, null));
+        assertSameLink(linkTo(methodOn(FolderController.class).searchFoldersByName("notes", null, null, null, null)),
+                LinkRelation.of("search-folders"), "HTTP Method: GET", linkBuilder.getSearchFoldersLink("notes", null));
+        assertSameLink(linkTo(methodOn(FolderController.class).searchFoldersByName(null, null, null, null, null)),
+                LinkRelation.of("search-folders"), "HTTP Method: GET", linkBuilder.getSearchFoldersLink(null, null));
+    }
+
+    @Test
+    void fileLinksMatchLinkTo() {
+        Long fileId = 7L;
+
+        assertSameLink(linkTo(methodOn(FileController.class).getFile(fileId, null)),
+                IanaLinkRelations.SELF, "HTTP Method: GET", linkBuilder.getFileSelfLink(fileId, null));
+        assertSameLink(linkTo(methodOn(FileController.class).getFile(null, null)),
+                IanaLinkRelations.SELF, "HTTP Method: GET", linkBuilder.getFileSelfLink(null, null));
+        assertSameLink(linkTo(methodOn(FileController.class).getFile(fileId, null)),
+                LinkRelation.of("get-file"), "HTTP Method: GET", linkBuilder.getFileLink(fileId, null));
+        assertSameLink(linkTo(methodOn(FileController.class).uploadFile(null, 1L, null)),
+                LinkRelation.of("upload-file"), "HTTP Method: PUT", linkBuilder.getUploadFileLink());
+        assertSameLink(linkTo(methodOn(FileController.class).replaceFileContent(fileId, null, null)),
+                LinkRelation.of("replace-file-content"), "HTTP Method: PUT",
+                linkBuilder.getReplaceFileContentLink(fileId, null));
+        assertSameLink(linkTo(methodOn(FileController.class).downloadFile(fileId, null, null, null)),
+                LinkRelation.of("download-file"), "HTTP Method: GET", linkBuilder.getDownloadFileLink(fileId, null));
+        assertSameLink(linkTo(methodOn(FileController.class).deleteFile(fileId, null)),
+                LinkRelation.of("delete-file"), "HTTP Method: DELETE", linkBuilder.getDeleteFileLink(fileId, null));
+        assertSameLink(linkTo(methodOn(FileController.class).renameFile(fileId, "placeholder", null)),
+                LinkRelation.of("rename-file"), "HTTP Method: PUT", linkBuilder.getRenameFileLink(fileId, null));
+    }
+
+    @Test
+    void fileQueryLinksKeepOpenVariables() {
+        assertSameLink(linkTo(methodOn(FileController.class).searchFilesByName("notes", null, null)),
+                LinkRelation.of("search-files"), "HTTP Method: GET", linkBuilder.getSearchFilesLink("notes", null));
+        assertSameLink(linkTo(methodOn(FileController.class).searchFilesByName(null, null, null)),
+                LinkRelation.of("search-files"), "HTTP Method: GET", linkBuilder.getSearchFilesLink(null, null));
+    }
+
+    private static void assertSameLink(WebMvcLinkBuilder expected, LinkRelation relation, String title, Link actual) {
+        Link expectedLink = expected.withRel(relation).withTitle(title);
+        assertEquals(expectedLink.getHref(), actual.getHref());
+        assertEquals(expectedLink.getRel(), actual.getRel());
+        assertEquals(expectedLink.getTitle(), actual.getTitle());
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.text_drive.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that snippets from ts_headline are escaped before the matches are highlighted.
+ */
+class PostgresContentSearchIndexTests {
+
+    @Test
+    void escapesContentAndHighlightsMarkedMatches() {
+        String snippet = "<script>alert('x')</script> the quick & brown fox";
+
+        assertEquals("&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt; the <b>quick</b> &amp; <b>brown</b> fox",
+                PostgresContentSearchIndex.toHtml(snippet));
+    }
+
+    @Test
+    void keepsMissingSnippets() {
+        assertNull(PostgresContentSearchIndex.toHtml(null));
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.text_drive.search;
+
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the encoding of posting lists, with and without pending entries.
+ */
+class PostingListTests {
+
+    @Test
+    void keepsEntriesInFileIdOrder() {
+        PostingList postingList = new PostingList();
+        postingList.put(42, new int[]{3, 7});
+        postingList.put(5, new int[]{1});
+        postingList.put(300_000, new int[]{1024, 70_000});
+
+        assertEquals(3, postingList.size());
+        assertArrayEquals(new int[]{5, 42, 300_000}, postingList.fileIds());
+        assertArrayEquals(new int[]{3, 7}, postingList.positions(42));
+        assertArrayEquals(new int[]{1024, 70_000}, postingList.positions(300_000));
+        assertArrayEquals(new int[0], postingList.positions(6));
+    }
+
+    @Test
+    void replacesAndRemovesEncodedEntries() {
+        PostingList postingList = new PostingList();
+        postingList.put(1, new int[]{1});
+        postingList.put(2, new int[]{2});
+        postingList.put(3, new int[]{3});
+        postingList.merge();
+
+        postingList.put(2, new int[]{20, 21});
+        postingList.remove(1);
+        postingList.remove(4);  // Not in the list
+
+        assertEquals(2, postingList.size());
+        assertArrayEquals(new int[]{2, 3}, postingList.fileIds());
+        assertArrayEquals(new int[]{20, 21}, postingList.positions(2));
+        assertArrayEquals(new int[0], postingList.positions(1));
+
+        postingList.merge();
+        assertEquals(2, postingList.size());
+        assertArrayEquals(new int[]{2, 3}, postingList.fileIds());
+        assertArrayEquals(new int[]{20, 21}, postingList.positions(2));
+    }
+
+    @Test
+    void cursorAdvancesOverPendingAndEncodedEntries() {
+        PostingList postingList = new PostingList();
+        postingList.put(10, new int[]{1});
+        postingList.put(30, new int[]{3});
+        postingList.merge();
+        postingList.put(20, new int[]{2});
+
+        PostingList.Cursor cursor = postingList.cursor();
+        assertTrue(cursor.advanceTo(15));
+        assertEquals(20, cursor.fileId());
+        assertArrayEquals(new int[]{2}, cursor.positions());
+        assertTrue(cursor.advanceTo(20));  // Already there
+        assertEquals(20, cursor.fileId());
+        assertTrue(cursor.advanceTo(21));
+        assertEquals(30, cursor.fileId());
+        assertArrayEquals(new int[]{3}, cursor.positions());
+        assertFalse(cursor.advanceTo(31));
+    }
+
+    @Test
+    void matchesModelAcrossMerges() {
+        PostingList postingList = new PostingList();
+        Map<Integer, int[]> model = new TreeMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            int fileId = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                postingList.remove(fileId);
+                model.remove(fileId);
+            } else {
+                int[] positions = {random.nextInt(100), 100 + random.nextInt(100_000)};
+                postingList.put(fileId, positions);
+                model.put(fileId, positions);
+            }
+        }
+
+        assertEquals(model.size(), postingList.size());
+        assertArrayEquals(model.keySet().stream().mapToInt(Integer::intValue).toArray(), postingList.fileIds());
+        model.forEach((fileId, positions) -> assertArrayEquals(positions, postingList.positions(fileId)));
+    }
+
+    @Test
+    void writesAndReadsPendingEntries() throws IOException {
+        PostingList postingList = new PostingList();
+        postingList.put(7, new int[]{0, 128, 16_384});
+        postingList.merge();
+        postingList.put(1, new int[]{5});
+        postingList.remove(7);
+        postingList.put(2_000_000, new int[]{Integer.MAX_VALUE});
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        postingList.writeTo(new DataOutputStream(bytes));
+        PostingList read = PostingList.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(2, read.size());
+        assertArrayEquals(new int[]{1, 2_000_000}, read.fileIds());
+        assertArrayEquals(new int[]{5}, read.positions(1));
+        assertArrayEquals(new int[]{Integer.MAX_VALUE}, read.positions(2_000_000));
+    }
+
+    @Test
+    void sharedEmptyListCannotBeChanged() {
+        assertTrue(PostingList.EMPTY.isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> PostingList.EMPTY.put(1, new int[]{1}));
+    }
+}
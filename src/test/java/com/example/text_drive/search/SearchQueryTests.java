@@ -0,0 +1,74 @@
+package com.example.text_drive.search;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the parsing of the web search syntax.
+ */
+class SearchQueryTests {
+
+    @Test
+    void parsesWordsAsOneAlternative() {
+        SearchQuery query = SearchQuery.parse("Quick  fox");
+
+        assertEquals(List.of(List.of(
+                new SearchQuery.Clause(List.of("quick"), false),
+                new SearchQuery.Clause(List.of("fox"), false)
+        )), query.getAlternatives());
+    }
+
+    @Test
+    void parsesQuotedPhrasesAndSplitWordsAsPhrases() {
+        SearchQuery query = SearchQuery.parse("\"brown fox\" foo-bar");
+
+        assertEquals(List.of(List.of(
+                new SearchQuery.Clause(List.of("brown", "fox"), false),
+                new SearchQuery.Clause(List.of("foo", "bar"), false)
+        )), query.getAlternatives());
+    }
+
+    @Test
+    void parsesAlternativesAndExclusions() {
+        SearchQuery query = SearchQuery.parse("cat or dog -\"hot dog\" -bird");
+
+        assertEquals(List.of(
+                List.of(new SearchQuery.Clause(List.of("cat"), false)),
+                List.of(
+                        new SearchQuery.Clause(List.of("dog"), false),
+                        new SearchQuery.Clause(List.of("hot", "dog"), true),
+                        new SearchQuery.Clause(List.of("bird"), true)
+                )
+        ), query.getAlternatives());
+        assertEquals(Set.of("cat", "dog"), query.getIncludedTerms());
+    }
+
+    @Test
+    void treatsQuotedOrAsAWord() {
+        SearchQuery query = SearchQuery.parse("this \"or\" that");
+
+        assertEquals(1, query.getAlternatives().size());
+        assertEquals(3, query.getAlternatives().get(0).size());
+    }
+
+    @Test
+    void acceptsAnUnterminatedQuote() {
+        SearchQuery query = SearchQuery.parse("\"quick brown");
+
+        assertEquals(List.of(List.of(new SearchQuery.Clause(List.of("quick", "brown"), false))),
+                query.getAlternatives());
+    }
+
+    @Test
+    void ignoresLeadingTrailingAndRepeatedOr() {
+        SearchQuery query = SearchQuery.parse("or cat or or dog or");
+
+        assertEquals(List.of(
+                List.of(new SearchQuery.Clause(List.of("cat"), false)),
+                List.of(new SearchQuery.Clause(List.of("dog"), false))
+        ), query.getAlternatives());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.text_drive.search;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that text is split into terms the way the 'simple' PostgreSQL configuration splits it.
+ */
+class TokenizerTests {
+
+    @Test
+    void splitsOnNonAlphanumericCharactersAndLowerCases() {
+        assertEquals(List.of("hello", "world", "42"), Tokenizer.tokenize("Hello, World! 42"));
+        assertEquals(List.of("foo", "bar", "txt"), Tokenizer.tokenize("foo-bar.txt"));
+    }
+
+    @Test
+    void keepsLettersOutsideAscii() {
+        assertEquals(List.of("åsa", "über", "straße"), Tokenizer.tokenize("Åsa ÜBER Straße"));
+    }
+
+    @Test
+    void returnsNoTermsForBlankText() {
+        assertEquals(List.of(), Tokenizer.tokenize(""));
+        assertEquals(List.of(), Tokenizer.tokenize("  -- \n"));
+    }
+
+    @Test
+    void cutsLongTerms() {
+        String term = "a".repeat(Tokenizer.MAX_TERM_LENGTH + 10);
+        assertEquals(List.of("a".repeat(Tokenizer.MAX_TERM_LENGTH)), Tokenizer.tokenize(term));
+    }
+}
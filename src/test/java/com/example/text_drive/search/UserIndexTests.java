@@ -0,0 +1,119 @@
+package com.example.text_drive.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks matching and ranking of the in-memory index, and that segments are read back as they were written.
+ */
+class UserIndexTests {
+
+    private static final Instant MODIFIED_AT = Instant.parse("2025-01-01T00:00:00Z");
+
+    private UserIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserIndex();
+        index.update(1, "notes.txt", 10L, MODIFIED_AT, "The quick brown fox jumps over the lazy dog");
+        index.update(2, "brown.txt", 10L, MODIFIED_AT, "A dog, brown and quick");
+        index.update(3, "fox.txt", 20L, MODIFIED_AT, "Nothing to see here");
+    }
+
+    @Test
+    void matchesPhrasesOnlyInOrder() {
+        assertEquals(List.of(1L), ids("\"quick brown\""));
+        assertEquals(List.of(), ids("\"brown quick\""));
+        assertEquals(List.of(2L, 1L), ids("quick brown"));  // File 2 also has brown in its name
+    }
+
+    @Test
+    void doesNotMatchPhrasesAcrossNameAndContent() {
+        assertEquals(List.of(), ids("\"txt a\""));  // End of the name of file 2, start of its content
+        assertEquals(List.of(2L), ids("\"brown txt\""));
+    }
+
+    @Test
+    void matchesAlternativesAndExclusions() {
+        assertEquals(List.of(1L, 2L), ids("dog -nothing"));
+        assertEquals(List.of(1L), ids("dog -\"and quick\""));
+        assertEquals(List.of(1L, 3L), ids("fox or lazy"));
+        assertEquals(List.of(), ids("-dog"));
+    }
+
+    @Test
+    void ranksNameMatchesHigher() {
+        List<SearchHit> hits = index.search(SearchQuery.parse("brown"));
+
+        assertEquals(2L, hits.get(0).getId());
+        assertEquals("brown.txt", hits.get(0).getName());
+        assertEquals(10L, hits.get(0).getFolderId());
+        assertTrue(hits.get(0).getRank() > hits.get(1).getRank());
+    }
+
+    @Test
+    void replacesRenamedAndRemovedFiles() {
+        index.update(2, "brown.txt", 10L, MODIFIED_AT, "Only a cat here");
+        assertEquals(List.of(1L), ids("dog"));
+
+        index.rename(2, "catalog.txt", MODIFIED_AT);
+        assertEquals(List.of(), ids("brown -fox"));
+        assertEquals(List.of(2L), ids("catalog"));
+        assertEquals(List.of(2L), ids("cat"));
+
+        index.remove(List.of(1, 3));
+        assertEquals(List.of(), ids("fox"));
+        assertEquals(List.of(2), List.copyOf(index.getModificationTimes().keySet()));
+    }
+
+    @Test
+    void readsBackWrittenSegments() throws IOException {
+        index.remove(List.of(3));
+        assertTrue(index.isDirty());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        assertFalse(index.isDirty());
+
+        UserIndex read = UserIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(index.getModificationTimes(), read.getModificationTimes());
+        for (String query : List.of("\"quick brown\"", "dog", "brown -lazy", "fox or nothing")) {
+            List<SearchHit> expected = index.search(SearchQuery.parse(query));
+            List<SearchHit> actual = read.search(SearchQuery.parse(query));
+            assertEquals(expected.stream().map(SearchHit::getId).toList(), actual.stream().map(SearchHit::getId).toList());
+            assertEquals(expected.stream().map(SearchHit::getRank).toList(), actual.stream().map(SearchHit::getRank).toList());
+        }
+
+        // Files read from a segment can still be renamed and removed, their terms are rebuilt from the postings
+        read.rename(1, "renamed.txt", MODIFIED_AT);
+        assertEquals(List.of(1L), idsIn(read, "renamed lazy"));
+        read.remove(List.of(1));
+        assertEquals(List.of(), idsIn(read, "lazy"));
+    }
+
+    @Test
+    void rejectsUnknownSegmentFormats() {
+        byte[] garbage = {0, 0, 0, 1, 0, 0, 0, 1};
+        assertThrows(IOException.class, () -> UserIndex.readFrom(new DataInputStream(new ByteArrayInputStream(garbage))));
+    }
+
+    private List<Long> ids(String query) {
+        return idsIn(index, query);
+    }
+
+    private static List<Long> idsIn(UserIndex index, String query) {
+        return index.search(SearchQuery.parse(query)).stream().map(SearchHit::getId).toList();
+    }
+}
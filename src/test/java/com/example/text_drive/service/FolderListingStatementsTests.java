@@ -0,0 +1,138 @@
+package com.example.text_drive.service;
+
+import com.example.text_drive.dto.FolderMapper;
+import com.example.text_drive.model.File;
+import com.example.text_drive.model.Folder;
+import com.example.text_drive.model.Role;
+import com.example.text_drive.model.User;
+import com.example.text_drive.repository.FolderRepository;
+import com.example.text_drive.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that listing and mapping folders runs a fixed number of SQL statements, however many folders there are.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class FolderListingStatementsTests {
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private FolderMapper folderMapper;
+
+    @Autowired
+    private FolderRepository folderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+    private Authentication authentication;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = userRepository.save(new User("statements-" + UUID.randomUUID(), null, Role.ROLE_USER));
+        authentication = new UsernamePasswordAuthenticationToken(owner, null, owner.getAuthorities());
+    }
+
+    @Test
+    void listingFoldersRunsFixedNumberOfStatements() {
+        createFolders(2);
+        long fewFolders = countListingStatements();
+
+        createFolders(20);
+        long manyFolders = countListingStatements();
+
+        assertEquals(fewFolders, manyFolders);
+    }
+
+    @Test
+    void listingFolderPageRunsFixedNumberOfStatements() {
+        createFolders(2);
+        long fewFolders = countPageStatements();
+
+        createFolders(20);
+        long manyFolders = countPageStatements();
+
+        assertEquals(fewFolders, manyFolders);
+    }
+
+    @Test
+    void streamingFoldersRunsFixedNumberOfStatementsPerPage() {
+        createFolders(2);
+        long fewFolders = countStreamStatements();
+
+        createFolders(20);
+        long manyFolders = countStreamStatements();
+
+        assertEquals(fewFolders, manyFolders);
+    }
+
+    private void createFolders(int count) {
+        for (int i = 0; i < count; i++) {
+            Folder folder = new Folder();
+            folder.setName("folder-" + i);
+            folder.setOwner(owner);
+            List<File> files = new ArrayList<>();
+            for (int j = 0; j < 3; j++) {
+                File file = new File("file-" + j + ".txt", folder);
+                file.setSize(0L);
+                file.setModifiedAt(Instant.now());
+                files.add(file);
+            }
+            folder.setFiles(files);
+            folderRepository.save(folder);
+        }
+        entityManager.flush();
+    }
+
+    private long countListingStatements() {
+        entityManager.clear();
+        statistics.clear();
+        folderService.getUserFolders(authentication)
+                .forEach(folder -> folderMapper.toDTO(folder, authentication));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long countStreamStatements() {
+        entityManager.clear();
+        statistics.clear();
+        folderService.forEachUserFolderPage(owner, folders ->
+                folders.forEach(folder -> folderMapper.toItemDTO(folder, authentication)));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long countPageStatements() {
+        entityManager.clear();
+        statistics.clear();
+        folderService.getUserFolders(null, 50, authentication).getContent()
+                .forEach(folder -> folderMapper.toDTO(folder, authentication));
+        return statistics.getPrepareStatementCount();
+    }
+}